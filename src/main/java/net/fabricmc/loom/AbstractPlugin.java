@@ -255,8 +255,7 @@ public class AbstractPlugin implements Plugin<Project> {
 						if (!extraMappings.getMethods().isEmpty() || !extraMappings.getFields().isEmpty()) {
 							Map<String, String> classes;
 							try {
-								classes = extension.getMappingsProvider().getMappings().getClassEntries().stream()
-																.collect(Collectors.toMap(entry -> entry.get(from), entry -> entry.get(to)));
+								classes = extension.getMappingsProvider().getIndexedMappings().getClasses(from, to);
 							} catch (IOException e) {
 								throw new UncheckedIOException("Error getting complete mappings", e);
 							}
@@ -68,11 +68,13 @@ import net.fabricmc.loom.decompilers.fernflower.ForgeFlowerDecompiler;
 import net.fabricmc.loom.dependencies.LoomDependencyManager;
 import net.fabricmc.loom.providers.JarNameFactory;
 import net.fabricmc.loom.providers.JarNamingStrategy;
+import net.fabricmc.loom.providers.MappingsCache;
 import net.fabricmc.loom.providers.MappingsProvider;
 import net.fabricmc.loom.providers.MinecraftLibraryProvider;
 import net.fabricmc.loom.providers.MinecraftMappedProvider;
 import net.fabricmc.loom.providers.MinecraftProvider;
 import net.fabricmc.loom.task.GenerateSourcesTask;
+import net.fabricmc.loom.util.DevJarCompression;
 import net.fabricmc.loom.util.GradleSupport;
 import net.fabricmc.loom.util.TinyRemapperMappingsHelper.LocalNameSuggestor;
 import net.fabricmc.stitch.commands.CommandProposeFieldNames.NameAcceptor;
@@ -132,6 +134,7 @@ public class LoomGradleExtension {
 
 		private final JarNameFactory namer;
 	}
+
 	public String runDir = "run";
 	public String refmapName;
 	public final Map<String, String> taskToRefmap = new HashMap<>();
@@ -144,8 +147,13 @@ public class LoomGradleExtension {
 	private JarMergeOrder mergeOrder = JarMergeOrder.INDIFFERENT;
 	private final List<Predicate<String>> libraryFilters = new ArrayList<>();
 	private boolean bulldozeMappings;
-	private NameAcceptor fieldInferenceFilter = (inputMapping, originalName, replacementName) -> originalName.startsWith("field_");
+	private boolean remapInOnePass;
+	private DevJarCompression devJarCompression = DevJarCompression.DEFAULT;
+	private static final NameAcceptor DEFAULT_FIELD_INFERENCE = (inputMapping, originalName, replacementName) -> originalName.startsWith("field_");
+	private NameAcceptor fieldInferenceFilter = DEFAULT_FIELD_INFERENCE;
 	private final List<LocalNameSuggestor> nameSuggestors = new ArrayList<>();
+	private final List<String> localNames = new ArrayList<>();
+	private boolean customLocalNamer;
 	private final Map<String, String> tokens = new HashMap<>();
 	private File atFile;
 	private File optifine;
@@ -486,6 +494,53 @@ public class LoomGradleExtension {
 		return bulldozeMappings;
 	}
 
+	/**
+	 * Sets whether the named Minecraft jar is remapped straight from the merged jar, alongside the intermediary jar,
+	 * rather than from the intermediary jar once it has been made. Has no effect if the jars are remapped before being merged.
+	 */
+	public void setRemapInOnePass(boolean onePass) {
+		remapInOnePass = onePass;
+	}
+
+	public boolean shouldRemapInOnePass() {
+		return remapInOnePass;
+	}
+
+	/**
+	 * Sets how the jars which are only used locally are compressed. This covers the remapped Minecraft and mod jars,
+	 * as well as the decompiled sources and line number adjusted Minecraft jars.
+	 */
+	public void setDevJarCompression(String compression) {
+		for (DevJarCompression value : DevJarCompression.values()) {
+			if (value.name().equalsIgnoreCase(compression)) {
+				setDevJarCompression(value);
+				return;
+			}
+		}
+
+		throw new IllegalArgumentException("Unknown compression " + compression + ", expected one of " + Arrays.toString(DevJarCompression.values()));
+	}
+
+	public void setDevJarCompression(DevJarCompression compression) {
+		devJarCompression = compression;
+	}
+
+	public DevJarCompression getDevJarCompression() {
+		return devJarCompression;
+	}
+
+	/**
+	 * Asks for parsed mappings to be able to take up at least the given memory (in megabytes).
+	 * This is shared between every project in the daemon, so only ever raises the size; the {@code fabric.loom.mappingsCacheSize} system property sets the starting size.
+	 */
+	public void setMappingsCacheSize(long megabytes) {
+		MappingsCache.INSTANCE.ensureMemoryBudget(megabytes << 20);
+	}
+
+	public long getMappingsCacheSize() {
+		return MappingsCache.INSTANCE.getMemoryBudget() >> 20;
+	}
+
 	public void setFieldInferenceFilter(NameAcceptor filter) {
 		fieldInferenceFilter = filter;
 	}
@@ -494,6 +549,11 @@ public class LoomGradleExtension {
 		return fieldInferenceFilter;
 	}
 
+	/** Whether the field inference filter has been left as the default, if it has been changed there is no telling what it will accept */
+	public boolean hasDefaultFieldInferenceFilter() {
+		return fieldInferenceFilter == DEFAULT_FIELD_INFERENCE;
+	}
+
 	public void addLocalName(String typeName, String localName) {
 		addLocalName(typeName, localName, localName + 's');
 	}
@@ -501,17 +561,24 @@ public class LoomGradleExtension {
 	public void addLocalName(String typeName, String localName, String pluralLocalName) {
 		String internalType = Objects.requireNonNull(typeName, "Passed in a null type").replace('.', '/');
 
-		addLocalNamer((type, plural) -> internalType.equals(type) ? plural ? pluralLocalName : localName : null);
+		nameSuggestors.add((type, plural) -> internalType.equals(type) ? plural ? pluralLocalName : localName : null);
+		localNames.add(internalType + ' ' + localName + ' ' + pluralLocalName);
 	}
 
 	public void addLocalNamer(LocalNameSuggestor suggestor) {
 		nameSuggestors.add(suggestor);
+		customLocalNamer = true;
 	}
 
 	public List<LocalNameSuggestor> getLocalSuggestors() {
 		return Collections.unmodifiableList(nameSuggestors);
 	}
 
+	/** Describes every local name which has been added, or {@code null} if any {@link #addLocalNamer(LocalNameSuggestor) namers} have been (as there is no telling what they suggest) */
+	public String describeLocalNames() {
+		return !customLocalNamer ? String.join("\n", localNames) : null;
+	}
+
 	public void token(CharSequence name) {
         token(name, "true");
     }
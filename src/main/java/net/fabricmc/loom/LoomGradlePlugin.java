@@ -45,6 +45,7 @@ import net.fabricmc.loom.task.GenEclipseRunsTask;
 import net.fabricmc.loom.task.GenIdeaProjectTask;
 import net.fabricmc.loom.task.GenVsCodeProjectTask;
 import net.fabricmc.loom.task.GenerateSourcesTask;
+import net.fabricmc.loom.task.MappingsDiffTask;
 import net.fabricmc.loom.task.MigrateMappingsTask;
 import net.fabricmc.loom.task.RemapJarTask;
 import net.fabricmc.loom.task.RemapSourcesJarTask;
@@ -84,6 +85,10 @@ public class LoomGradlePlugin extends AbstractPlugin {
 			t.getOutputs().upToDateWhen((o) -> false);
 		});
 
+		tasks.register("mappingsDiff", MappingsDiffTask.class, t -> {
+			t.getOutputs().upToDateWhen(o -> false);
+		});
+
 		tasks.register("remapJar", RemapJarTask.class);
 
 		addAfterEvaluate(() -> {
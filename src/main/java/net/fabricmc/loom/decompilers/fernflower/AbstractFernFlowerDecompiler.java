@@ -45,6 +45,7 @@ import org.gradle.process.ExecResult;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerLogger.Severity;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 
+import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.api.decompilers.DecompilationMetadata;
 import net.fabricmc.loom.api.decompilers.LoomDecompiler;
 import net.fabricmc.loom.util.ConsumingOutputStream;
@@ -90,6 +91,7 @@ public abstract class AbstractFernFlowerDecompiler implements LoomDecompiler {
 		args.add("-o=" + absolutePathOf(sourcesDestination));
 		args.add("-l=" + absolutePathOf(linemapDestination));
 		args.add("-m=" + absolutePathOf(metaData.javaDocs));
+		args.add("-c=" + project.getExtensions().getByType(LoomGradleExtension.class).getDevJarCompression().name());
 
 		//TODO, Decompiler breaks on jemalloc, J9 module-info.class?
 		for (Path library : metaData.libraries) {
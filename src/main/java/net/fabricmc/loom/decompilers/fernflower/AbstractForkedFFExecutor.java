@@ -31,6 +31,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
+import net.fabricmc.loom.util.DevJarCompression;
+
 /**
  * Entry point for Forked FernFlower task.
  * Takes one parameter, a single file, each line is treated as command line input.
@@ -42,6 +44,9 @@ import java.util.Objects;
  * </p>
  */
 public abstract class AbstractForkedFFExecutor {
+	/** How the decompiled sources jar should be compressed */
+	protected DevJarCompression outputCompression = DevJarCompression.DEFAULT;
+
 	public static void decompile(String[] args, AbstractForkedFFExecutor ffExecutor) {
 		Map<String, Object> options = new HashMap<>();
 		File input = null;
@@ -79,6 +84,8 @@ public abstract class AbstractForkedFFExecutor {
 					}
 
 					lineMap = new File(arg.substring(3));
+				} else if (arg.startsWith("-c=")) {
+					ffExecutor.outputCompression = DevJarCompression.valueOf(arg.substring(3));
 				} else if (arg.startsWith("-m=")) {
 					if (mappings != null) {
 						throw new RuntimeException("Unable to use more than one mappings file.");
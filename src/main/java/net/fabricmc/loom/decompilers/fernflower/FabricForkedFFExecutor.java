@@ -45,7 +45,7 @@ public class FabricForkedFFExecutor extends AbstractForkedFFExecutor {
 	public void runFF(Map<String, Object> options, List<File> libraries, File input, File output, File lineMap, File mappings) {
 		if (mappings.exists()) options.put(IFabricJavadocProvider.PROPERTY_NAME, new JavadocProvider(mappings));
 
-		IResultSaver saver = new ThreadSafeResultSaver(() -> output, () -> lineMap);
+		IResultSaver saver = new ThreadSafeResultSaver(() -> output, () -> lineMap, outputCompression);
 		IFernflowerLogger logger = new ThreadIDFFLogger(System.out, System.err, false);
 		Fernflower ff = new Fernflower(FernFlowerUtils::getBytecode, saver, options, logger, getThreads(options));
 
@@ -39,27 +39,34 @@ import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
-import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.jetbrains.java.decompiler.main.DecompilerContext;
 import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
 import org.jetbrains.java.decompiler.main.extern.IResultSaver;
 
+import net.fabricmc.loom.util.DevJarCompression;
+
 /**
  * Created by covers1624 on 18/02/19.
  */
 public class ThreadSafeResultSaver implements IResultSaver {
 	private final Supplier<File> output;
 	private final Supplier<File> lineMapFile;
+	private final DevJarCompression compression;
 
 	public Map<String, ZipOutputStream> outputStreams = new HashMap<>();
 	public Map<String, ExecutorService> saveExecutors = new HashMap<>();
 	public PrintWriter lineMapWriter;
 
 	public ThreadSafeResultSaver(Supplier<File> output, Supplier<File> lineMapFile) {
+		this(output, lineMapFile, DevJarCompression.DEFAULT);
+	}
+
+	public ThreadSafeResultSaver(Supplier<File> output, Supplier<File> lineMapFile, DevJarCompression compression) {
 		this.output = output;
 		this.lineMapFile = lineMapFile;
+		this.compression = compression;
 	}
 
 	@Override
@@ -69,7 +76,7 @@ public class ThreadSafeResultSaver implements IResultSaver {
 
 		try {
 			FileOutputStream fos = new FileOutputStream(file);
-			ZipOutputStream zos = manifest == null ? new ZipOutputStream(fos) : new JarOutputStream(fos, manifest);
+			ZipOutputStream zos = compression.apply(manifest == null ? new ZipOutputStream(fos) : new JarOutputStream(fos, manifest));
 			outputStreams.put(key, zos);
 			saveExecutors.put(key, Executors.newSingleThreadExecutor());
 		} catch (IOException e) {
@@ -100,11 +107,9 @@ public class ThreadSafeResultSaver implements IResultSaver {
 			ZipOutputStream zos = outputStreams.get(key);
 
 			try {
-				zos.putNextEntry(new ZipEntry(entryName));
-
-				if (content != null) {
-					zos.write(content.getBytes(StandardCharsets.UTF_8));
-				}
+				byte[] data = content != null ? content.getBytes(StandardCharsets.UTF_8) : new byte[0];
+				zos.putNextEntry(compression.createEntry(entryName, data));
+				zos.write(data);
 			} catch (IOException e) {
 				DecompilerContext.getLogger().writeMessage("Cannot write entry " + entryName, e);
 			}
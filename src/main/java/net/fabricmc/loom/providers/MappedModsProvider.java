@@ -105,7 +105,7 @@ public class MappedModsProvider extends LogicalDependencyProvider {
 		boolean sourcesExist = !sourced.isEmpty();
 
 		TinyRemapper remapper = TinyRemapper.newRemapper()
-						.withMappings(TinyRemapperMappingsHelper.create(extension, mappingsProvider.getMappings(), fromM, toM))
+						.withMappings(TinyRemapperMappingsHelper.create(extension, mappingsProvider.getIndexedMappings(), fromM, toM))
 						.ignoreConflicts(extension.shouldBulldozeMappings())
 						.renameInvalidLocals(!sourcesExist)
 						.keepInputData(sourcesExist && !unsourced.isEmpty()) //Retain the class data if the second remapper will use it too
@@ -134,7 +134,7 @@ public class MappedModsProvider extends LogicalDependencyProvider {
 
 				public OutputConsumerPath startRemapping(TinyRemapper remapper) throws IOException {
 					if (outputConsumer != null) throw new IllegalStateException("Already started remapping");
-					outputConsumer = new OutputConsumerPath(output.toPath());
+					outputConsumer = extension.getDevJarCompression().createOutput(output.toPath());
 
 					outputConsumer.addNonClassFiles(input.toPath());
 					remapper.apply(outputConsumer, tag);
@@ -26,40 +26,161 @@ package net.fabricmc.loom.providers;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
 
-import net.fabricmc.loom.util.StaticPathWatcher;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import net.fabricmc.loom.providers.mappings.IndexedMappings;
+import net.fabricmc.loom.providers.mappings.TinyIndex;
+import net.fabricmc.loom.util.FileHashes;
 import net.fabricmc.mappings.Mappings;
 import net.fabricmc.mappings.MappingsProvider;
 
+/**
+ * Parsed {@link Mappings} shared between every project in the daemon, keyed by the content of the file they were read from.
+ *
+ * <p>Entries are weighed by an estimate of how much heap they take up, and evicted least recently used first once
+ * the {@link #ensureMemoryBudget(long) memory budget} is exceeded, or if the garbage collector needs the room. Concurrent
+ * loads of the same mappings only parse them once. Anything {@link IndexedMappings#derive(Object, java.util.function.Function) derived}
+ * from the mappings lives and dies with them, but isn't counted towards their weight.
+ */
 public final class MappingsCache {
+	private static class Entry {
+		final IndexedMappings mappings;
+		final int weight;
+
+		Entry(Mappings mappings, long fileSize, boolean indexed) {
+			this.mappings = new IndexedMappings(mappings);
+			//Parsed mappings are several times the size of the text they came from, mapped ones only hold what has been looked up
+			weight = (int) Math.min(Integer.MAX_VALUE, (indexed ? fileSize : fileSize * PARSED_EXPANSION) >> 10);
+		}
+	}
 	public static final MappingsCache INSTANCE = new MappingsCache();
+	/** Roughly how much larger parsed mappings are on the heap compared to the tiny file they came from */
+	private static final int PARSED_EXPANSION = 6;
+	/** The default memory budget, enough for a few full Yarn sets unless the {@code fabric.loom.mappingsCacheSize} system property (in megabytes) says otherwise */
+	public static final long DEFAULT_BUDGET = Long.getLong("fabric.loom.mappingsCacheSize", 512) << 20;
 
-	private final Map<Path, SoftReference<Mappings>> mappingsCache = new HashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private volatile Cache<HashCode, Entry> mappingsCache = makeCache(DEFAULT_BUDGET);
+	private long budget = DEFAULT_BUDGET;
 
 	private MappingsCache() {
 	}
 
-	//TODO: loom doesn't actually use new mappings when the mappings change until the Gradle daemons are stopped
-    public Mappings get(Path mappingsPath) throws IOException {
-		mappingsPath = mappingsPath.toAbsolutePath();
+	private static Cache<HashCode, Entry> makeCache(long budget) {
+		return CacheBuilder.newBuilder().maximumWeight(budget >> 10).weigher((HashCode hash, Entry entry) -> entry.weight).softValues().build();
+	}
+
+	/**
+	 * Raises roughly how many bytes of heap the cached mappings are allowed to occupy to at least the given amount.
+	 * The budget is shared by every project in the daemon, so it is never lowered by any one of them.
+	 */
+	public synchronized void ensureMemoryBudget(long bytes) {
+		if (bytes < 0) throw new IllegalArgumentException("Negative memory budget: " + bytes);
+
+		if (bytes > budget) {
+			Cache<HashCode, Entry> cache = makeCache(bytes);
+			cache.putAll(mappingsCache.asMap());
+			mappingsCache = cache;
+			budget = bytes;
+		}
+	}
+
+	public synchronized long getMemoryBudget() {
+		return budget;
+	}
+
+	/** How many times mappings were asked for which were already loaded (or being loaded by another thread) */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/** How many times mappings were asked for which needed loading */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/** Drops the mappings read from the given file if they are cached, so nothing keeps its index mapped once they are collected */
+	public void invalidate(Path mappingsPath) throws IOException {
+		Path path = mappingsPath.toAbsolutePath();
+		if (Files.exists(path)) mappingsCache.invalidate(FileHashes.sha1(path));
+	}
+
+	/** The mappings from the given file, with the lookups between namespaces and anything derived from them that have already been needed */
+	public IndexedMappings get(Path mappingsPath) throws IOException {
+		Path path = mappingsPath.toAbsolutePath();
+		return get(FileHashes.sha1(path), path.toString(), () -> load(path));
+	}
+
+	/**
+	 * The mappings from the given entry in the given jar, keyed by the jar itself so it only needs opening if they aren't already loaded.
+	 * Nothing from the jar's file system is kept hold of after it is closed again.
+	 */
+	@SuppressWarnings("deprecation") //Not for security, just identity
+	public IndexedMappings get(Path jar, String mappingsEntry) throws IOException {
+		Path path = jar.toAbsolutePath();
+		HashCode key = Hashing.sha1().newHasher().putBytes(FileHashes.sha1(path).asBytes()).putString(mappingsEntry, StandardCharsets.UTF_8).hash();
+
+		return get(key, path + "!/" + mappingsEntry, () -> {
+			try (FileSystem fs = FileSystems.newFileSystem(path, null)) {
+				return load(fs.getPath(mappingsEntry));
+			}
+		});
+	}
+
+	private IndexedMappings get(HashCode key, String name, Callable<Entry> loader) throws IOException {
+		boolean[] loaded = new boolean[1];
 
-        SoftReference<Mappings> ref = !StaticPathWatcher.INSTANCE.hasFileChanged(mappingsPath) ? mappingsCache.get(mappingsPath) : null;
-        Mappings mappings = ref != null ? ref.get() : null;
+		try {
+			Entry entry = mappingsCache.get(key, () -> {
+				loaded[0] = true;
+				return loader.call();
+			});
+
+			(loaded[0] ? misses : hits).increment();
+			return entry.mappings;
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(e.getCause());
+			throw new RuntimeException("Error loading mappings from " + name, e.getCause());
+		}
+	}
 
-        if (mappings == null) {
-        	try (InputStream stream = Files.newInputStream(mappingsPath)) {
-                mappings = MappingsProvider.readTinyMappings(stream, false);
-                mappingsCache.put(mappingsPath, new SoftReference<>(mappings));
-            }
+	private static Entry load(Path mappingsPath) throws IOException {
+		//Only index files on disk, writing next to something inside a jar would be rather rude
+		Path index = mappingsPath.getFileSystem() == FileSystems.getDefault() ? TinyIndex.getIndexFile(mappingsPath) : null;
 
-        	StaticPathWatcher.INSTANCE.resetFile(mappingsPath);
-        }
+		Mappings mappings;
+		if (index != null && (mappings = TinyIndex.read(index, mappingsPath)) != null) {
+			return new Entry(mappings, Files.size(index), true);
+		}
 
-        return mappings;
-    }
+		try (InputStream stream = Files.newInputStream(mappingsPath)) {
+			mappings = MappingsProvider.readTinyMappings(stream, false);
+		}
+
+		if (index != null) {
+			try {
+				TinyIndex.write(mappings, mappingsPath, index);
+			} catch (IOException e) {
+				//Not the end of the world, the mappings will just get parsed again next time
+			}
+		}
+
+		return new Entry(mappings, Files.size(mappingsPath), false);
+	}
 }
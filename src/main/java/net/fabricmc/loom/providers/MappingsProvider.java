@@ -15,15 +15,12 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -35,6 +32,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.TimeUnit;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.function.Consumer;
@@ -45,11 +43,11 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.zip.GZIPInputStream;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-
-import cuchaz.enigma.command.MapSpecializedMethodsCommand;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -66,16 +64,23 @@ import net.fabricmc.loom.providers.LazyMappings.ActiveMappings;
 import net.fabricmc.loom.providers.MinecraftProvider.MinecraftVersion;
 import net.fabricmc.loom.providers.StackedMappingsProvider.MappingFile;
 import net.fabricmc.loom.providers.StackedMappingsProvider.MappingFile.MappingType;
+import net.fabricmc.loom.providers.mappings.AnalysisCache;
+import net.fabricmc.loom.providers.mappings.BridgeMethods;
 import net.fabricmc.loom.providers.mappings.EnigmaReader;
+import net.fabricmc.loom.providers.mappings.FieldProposals;
+import net.fabricmc.loom.providers.mappings.IndexedMappings;
 import net.fabricmc.loom.providers.mappings.MappingBlob;
 import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping;
 import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Field;
 import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Method;
+import net.fabricmc.loom.providers.mappings.MappingLayerCache;
 import net.fabricmc.loom.providers.mappings.TinyDuplicator;
+import net.fabricmc.loom.providers.mappings.TinyIndex;
 import net.fabricmc.loom.providers.mappings.TinyReader;
 import net.fabricmc.loom.providers.mappings.TinyV2toV1;
 import net.fabricmc.loom.providers.mappings.TinyWriter;
 import net.fabricmc.loom.util.Constants;
+import net.fabricmc.loom.util.FileHashes;
 import net.fabricmc.loom.util.MapJarsTiny;
 import net.fabricmc.loom.util.TinyRemapperMappingsHelper;
 import net.fabricmc.mappings.ClassEntry;
@@ -95,6 +100,7 @@ public class MappingsProvider extends LogicalDependencyProvider {
 	public MappingFactory mcRemappingFactory;
 
 	static final String INTERMEDIARY = "net.fabricmc.intermediary";
+	private static final int ANALYSES_KEPT = 8, ANALYSIS_AGE = 30;
 	private final List<MappingFile> mappingFiles = new ArrayList<>();
 
 	public String mappingsName;
@@ -104,16 +110,23 @@ public class MappingsProvider extends LogicalDependencyProvider {
 	public File MAPPINGS_DIR;
 	public File MAPPINGS_MIXIN_EXPORT;
 
-	private Path stackHistory;
-	private boolean knownStack;
+	private Path stackManifest;
+	/** The hashes of each layer of a stack of mapping files, including every layer beneath it */
+	private List<HashCode> stackHashes;
 	private File intermediaryNames;
 	// The mappings that gradle gives us
 	private File MAPPINGS_TINY_BASE;
 	// The mappings we use in practice
 	public File MAPPINGS_TINY;
+	// A binary copy of MAPPINGS_TINY which can be mapped straight back in
+	private Path mappingsIndex;
 	private Path parameterNames, decompileComments;
 
 	public Mappings getMappings() throws IOException {
+		return getIndexedMappings();
+	}
+
+	public IndexedMappings getIndexedMappings() throws IOException {
 		return MappingsCache.INSTANCE.get(MAPPINGS_TINY.toPath());
 	}
 
@@ -121,6 +134,11 @@ public class MappingsProvider extends LogicalDependencyProvider {
 		return decompileComments;
 	}
 
+	/** The parameter names merged into the mappings when remapping Minecraft, which won't exist if the mappings have none */
+	public Path getParameterNames() {
+		return parameterNames;
+	}
+
 	@Override
 	public Set<Class<? extends DependencyProvider>> getDependencies() {
 		return ImmutableSet.of(StackedMappingsProvider.class, MinecraftProvider.class);
@@ -135,6 +153,7 @@ public class MappingsProvider extends LogicalDependencyProvider {
 		MinecraftProvider minecraftProvider = getProvider(MinecraftProvider.class);
 
 		initFiles(extension, project.getLogger(), minecraftProvider);
+		AnalysisCache analysisCache = new AnalysisCache(new File(extension.getUserCache(), "mappings/analysis").toPath());
 
 		if (!MAPPINGS_TINY_BASE.exists() || !MAPPINGS_TINY.exists()) {
 			FileUtils.forceMkdir(MAPPINGS_DIR);
@@ -233,10 +252,29 @@ public class MappingsProvider extends LogicalDependencyProvider {
 
 					if (minecraftProvider.needsIntermediaries()) minecraftProvider.giveIntermediaries(intermediaries.getMappings());
 				}
+
+				int firstLayer = 0;
+				HashCode intermediaryHash = null;
+				if (stackHashes != null) {
+					intermediaryHash = FileHashes.sha1(interProvider.isPresent() ? interProvider.get().origin.toPath() : intermediaryNames.toPath());
+
+					for (int layer = mappingFiles.size() - 1; layer >= 0; layer--) {
+						try {
+							if (MappingLayerCache.read(getLayerCache(intermediaryHash, layer), mappings)) {
+								project.getLogger().lifecycle(":reusing merged mappings up to " + mappingFiles.get(layer).origin.getName());
+								firstLayer = layer + 1;
+								break;
+							}
+						} catch (IOException | RuntimeException e) {
+							project.getLogger().warn("Unable to read cached mappings for " + mappingFiles.get(layer).origin.getName() + ", will merge again", e);
+						}
+					}
+				}
 				Map<String, MappingBlob> versionToIntermediaries = new HashMap<>();
 				Map<String, JarMergeOrder> versionToMerging = new HashMap<>();
 
-				for (MappingFile mapping : mappingFiles) {
+				for (int layer = firstLayer; layer < mappingFiles.size(); layer++) {
+					MappingFile mapping = mappingFiles.get(layer);
 					project.getLogger().lifecycle(":loading " + mapping.origin.getName());
 
 					MappingBlob gains = new MappingBlob();
@@ -244,7 +282,7 @@ public class MappingsProvider extends LogicalDependencyProvider {
 
 					switch (mapping.type) {
 					case Enigma: {
-						EnigmaReader.readEnigma(mapping.origin.toPath(), gains);
+						EnigmaReader.readEnigmaParallel(mapping.origin.toPath(), gains);
 
 						if (gains.stream().parallel().noneMatch(classMapping -> classMapping.from.startsWith("net/minecraft/class_"))) {
 							nativeNames = true;
@@ -284,19 +322,19 @@ public class MappingsProvider extends LogicalDependencyProvider {
 							}
 						}
 
-						Path specialisedMappings = MAPPINGS_DIR.toPath().resolve(FilenameUtils.removeExtension(mapping.origin.getName()) + "-specialised.jar");
-						try (FileSystem fs = FileSystems.newFileSystem(new URI("jar:" + specialisedMappings.toUri()), Collections.singletonMap("create", "true"))) {
-							Path destination = fs.getPath("mappings/mappings.tiny");
-
-							Files.createDirectories(destination.getParent());
-							MapSpecializedMethodsCommand.run(contextJar, "enigma", mapping.origin.toPath(), "tinyv2:" + from + ":named", destination);
-						} catch (URISyntaxException e) {
-							throw new IllegalStateException("Cannot convert jar path to URI?", e);
-						} catch (IOException e) {
-							throw new UncheckedIOException("Error creating mappings jar", e);
+						//Only which methods are bridges for which comes from the jar, so that's all which needs keeping between different mappings
+						Path bridgeMethods = MAPPINGS_DIR.toPath().resolve(FilenameUtils.removeExtension(mapping.origin.getName()) + "-bridges.txt");
+						AnalysisCache.Key bridgesKey = analysisCache.key("bridge-methods", BridgeMethods.class).put(contextJar);
+						if (analysisCache.restore(bridgesKey, bridgeMethods)) {
+							project.getLogger().lifecycle(":reusing specialised methods for " + contextJar.getFileName());
+						} else {
+							BridgeMethods.find(contextJar, bridgeMethods);
+							analysisCache.store(bridgesKey, bridgeMethods);
 						}
 
-						mapping = new MappingFile(specialisedMappings.toFile(), mapping.name, mapping.version, mapping.minecraftVersion, MappingType.TinyV2, ImmutableList.of(from, "named"));
+						BridgeMethods.apply(bridgeMethods, gains);
+						Files.delete(bridgeMethods);
+						break;
 					}
 
 					case TinyV1:
@@ -317,18 +355,15 @@ public class MappingsProvider extends LogicalDependencyProvider {
 							TinyReader.readTiny(fileSystem.getPath("mappings/mappings.tiny"), origin, "named", gains);
 
 							if (mapping.type == MappingType.TinyV2) {
-								UnaryOperator<String> classRemapper;
+								UnaryOperator<String> descRemapper;
 								if (!origin.equals(mapping.getNamespaces().get(0))) {
 									MappingBlob nativeToOrigin = new MappingBlob();
 									TinyReader.readTiny(fileSystem.getPath("mappings/mappings.tiny"), mapping.getNamespaces().get(0), origin, nativeToOrigin);
-									classRemapper = name -> {
-										String remap = nativeToOrigin.tryMapName(name);
-										return remap != null ? remap : name;
-									};
+									descRemapper = nativeToOrigin.memoiseDescriptors()::remapDesc;
 								} else {
-									classRemapper = null; //Origin column is the main column, descriptors won't need to be renamed
+									descRemapper = null; //Origin column is the main column, descriptors won't need to be renamed
 								}
-								TinyReader.readComments(fileSystem.getPath("mappings/mappings.tiny"), origin, classRemapper, gains);
+								TinyReader.readComments(fileSystem.getPath("mappings/mappings.tiny"), origin, descRemapper, gains);
 							}
 						}
 						break;
@@ -390,7 +425,7 @@ public class MappingsProvider extends LogicalDependencyProvider {
 									}
 								}
 							}
-							return inters;
+							return inters.memoiseDescriptors(); //Will be used to rename each mapping file for the version
 						});
 
 						logErroneousMappings(project.getLogger(), gains, renamer);
@@ -455,6 +490,14 @@ public class MappingsProvider extends LogicalDependencyProvider {
 							}
 						}
 					}
+
+					if (stackHashes != null) {
+						try {
+							MappingLayerCache.write(mappings, getLayerCache(intermediaryHash, layer));
+						} catch (IOException e) {
+							project.getLogger().warn("Unable to cache merged mappings for " + mapping.origin.getName(), e);
+						}
+					}
 				}
 
 				project.getLogger().lifecycle(":combining mappings");
@@ -561,8 +604,8 @@ public class MappingsProvider extends LogicalDependencyProvider {
 					MAPPINGS_TINY.delete();
 				}
 
-				//If we've successfully joined all the mappings together, save the stack
-				if (!knownStack && mappingFiles.size() > 1) writeStackHistory(mappingsVersion);
+				//If we've successfully joined all the mappings together, note which layers went into the stack
+				if (stackHashes != null) writeStackManifest(intermediaryHash);
 			}
 
 			assert MAPPINGS_TINY_BASE.exists();
@@ -592,8 +635,37 @@ public class MappingsProvider extends LogicalDependencyProvider {
 			default:
 				throw new IllegalStateException("Unexpected jar merge strategy " + minecraftProvider.getMergeStrategy());
 			}
-			CommandProposeFieldNames.run(minecraftProvider.getMergedJar().toFile(), MAPPINGS_TINY_BASE, MAPPINGS_TINY, namespace, "named", extension.getFieldInferenceFilter());
+			//A custom filter could accept anything, so there's no way of knowing whether a past proposal would be the same
+			if (extension.hasDefaultFieldInferenceFilter()) {
+				//The proposals only depend on the jar and the Intermediaries, so they're made against mappings with nothing else named
+				Path blank = MAPPINGS_DIR.toPath().resolve(FilenameUtils.removeExtension(MAPPINGS_TINY.getName()) + "-blank.tiny");
+				Path proposals = MAPPINGS_DIR.toPath().resolve(FilenameUtils.removeExtension(MAPPINGS_TINY.getName()) + "-fields.txt");
+
+				try {
+					FieldProposals.writeBlank(MAPPINGS_TINY_BASE.toPath(), blank);
+					AnalysisCache.Key fieldsKey = analysisCache.key("field-proposals", CommandProposeFieldNames.class).put(minecraftProvider.getMergedJar()).put(blank).put(namespace);
+
+					if (analysisCache.restore(fieldsKey, proposals)) {
+						project.getLogger().lifecycle(":reusing field names proposed before");
+					} else {
+						FieldProposals.propose(minecraftProvider.getMergedJar(), blank, namespace, extension.getFieldInferenceFilter(), proposals);
+						analysisCache.store(fieldsKey, proposals);
+					}
+
+					FieldProposals.apply(MAPPINGS_TINY_BASE.toPath(), proposals, MAPPINGS_TINY.toPath());
+				} finally {
+					Files.deleteIfExists(blank);
+					Files.deleteIfExists(proposals);
+				}
+			} else {
+				CommandProposeFieldNames.run(minecraftProvider.getMergedJar().toFile(), MAPPINGS_TINY_BASE, MAPPINGS_TINY, namespace, "named", extension.getFieldInferenceFilter());
+			}
 			CommandCorrectMappingUnions.run(MAPPINGS_TINY.toPath(), "intermediary", "named");
+			//Each analysis is small, but a new one is made for every jar and set of Intermediaries
+			analysisCache.prune(ANALYSES_KEPT, ANALYSIS_AGE, TimeUnit.DAYS);
+
+			//Index the freshly made mappings now, rather than whenever they're first asked for
+			getMappings();
 		} else {
 			if (minecraftProvider.needsIntermediaries()) minecraftProvider.giveIntermediaries(MAPPINGS_TINY.toPath());
 		}
@@ -622,13 +694,15 @@ public class MappingsProvider extends LogicalDependencyProvider {
 			}
 
 			mcRemappingFactory = (fromM, toM) -> new IMappingProvider() {
-				private final IMappingProvider normal = TinyRemapperMappingsHelper.create(extension, getMappings(), fromM, toM);
+				private final IMappingProvider normal = TinyRemapperMappingsHelper.create(extension, getIndexedMappings(), fromM, toM);
+				//Remapping straight to named from something other than intermediary needs the arguments moving over to what is being remapped from
+				private final Map<String, String[]> args = "intermediary".equals(fromM) ? lines : "named".equals(toM) ? moveArgs(lines, fromM) : null;
 
 				@Override
 				public void load(Map<String, String> classMap, Map<String, String> fieldMap, Map<String, String> methodMap, Map<String, String[]> localMap) {
 					load(classMap, fieldMap, methodMap);
-					if ("intermediary".equals(fromM)) {
-						localMap.putAll(lines);
+					if (args != null) {
+						localMap.putAll(args);
 					}
 				}
 
@@ -643,7 +717,7 @@ public class MappingsProvider extends LogicalDependencyProvider {
 				}
 			};
 		} else {
-			mcRemappingFactory = (fromM, toM) -> TinyRemapperMappingsHelper.create(extension, getMappings(), fromM, toM);
+			mcRemappingFactory = (fromM, toM) -> TinyRemapperMappingsHelper.create(extension, getIndexedMappings(), fromM, toM);
 		}
 
 		File mappingJar;
@@ -781,112 +855,75 @@ public class MappingsProvider extends LogicalDependencyProvider {
 		return thing -> thing != null ? test.apply(thing) : null;
 	}
 
-	private String readStackHistory() {
-		if (Files.notExists(stackHistory)) {
-			return "1";
-		} else {
-			List<String> expected = mappingFiles.stream().map(mappings -> mappings.name + '-' + mappings.version + ' ' + mappings.minecraftVersion).collect(Collectors.toList());
-			assert !expected.isEmpty();
-
-			try (BufferedReader reader = Files.newBufferedReader(stackHistory)) {
-				String currentVersion = reader.readLine();
-				String newestVersion = currentVersion;
-				int currentPosition = 0;
-				for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-					assert !line.isEmpty();
-
-					if (line.charAt(0) != '\t') {
-						if (currentPosition == expected.size()) {
-							assert currentVersion != null;
-							knownStack = true;
-							return currentVersion;
-						}
+	@SuppressWarnings("deprecation") //Not for security, just identity
+	private List<HashCode> hashStack(String minecraftVersion) {
+		List<HashCode> hashes = new ArrayList<>(mappingFiles.size());
 
-						currentVersion = line;
-						currentPosition = 0;
-					} else if (currentVersion != null) {
-						assert line.charAt(0) == '\t';
-
-						if (currentPosition >= expected.size() || !line.regionMatches(1, expected.get(currentPosition), 0, line.length() - 1)) {
-							currentVersion = null;
-						} else {
-							currentPosition++;
-						}
-					}
-				}
+		HashCode hash = Hashing.sha1().hashString(minecraftVersion, StandardCharsets.UTF_8);
+		for (MappingFile mapping : mappingFiles) {
+			Hasher hasher = Hashing.sha1().newHasher().putBytes(hash.asBytes());
+			hasher.putString(mapping.name + '-' + mapping.version + ' ' + mapping.minecraftVersion, StandardCharsets.UTF_8);
 
-				return Integer.toString(Integer.parseUnsignedInt(newestVersion) + 1);
+			try {
+				hasher.putBytes(FileHashes.sha1(mapping.origin.toPath()).asBytes());
 			} catch (IOException e) {
-				throw new UncheckedIOException("Error reading stack history file at " + stackHistory, e);
+				throw new UncheckedIOException("Error hashing mappings from " + mapping.origin, e);
 			}
+
+			hashes.add(hash = hasher.hash());
 		}
+
+		return hashes;
 	}
 
-	private void writeStackHistory(String version) {
-		assert !knownStack; //No need to go through all this if it's already in the history
+	@SuppressWarnings("deprecation") //Not for security, just identity
+	private Path getLayerCache(HashCode intermediaries, int layer) {
+		HashCode hash = Hashing.sha1().newHasher().putBytes(intermediaries.asBytes()).putBytes(stackHashes.get(layer).asBytes()).hash();
+		return stackManifest.resolveSibling(hash + ".tiny");
+	}
 
-		StringBuilder addition = new StringBuilder(version).append('\n');
+	private void writeStackManifest(HashCode intermediaries) {
+		StringBuilder manifest = new StringBuilder();
 
-		for (MappingFile mapping : mappingFiles) {
-			addition.append('\t').append(mapping.name).append('-').append(mapping.version).append(' ').append(mapping.minecraftVersion).append('\n');
+		for (int layer = 0; layer < mappingFiles.size(); layer++) {
+			MappingFile mapping = mappingFiles.get(layer);
+			manifest.append(mapping.name).append('-').append(mapping.version).append(' ').append(mapping.minecraftVersion);
+			manifest.append('\t').append(getLayerCache(intermediaries, layer).getFileName()).append('\n');
 		}
 
-		byte data[] = addition.toString().getBytes(StandardCharsets.UTF_8);
-		ByteBuffer active;
-		if (data.length >= 4096) {
-			active = ByteBuffer.wrap(data);
-		} else {
-			active = ByteBuffer.allocate(4096);
-			active.put(data);
-			active.flip();
+		try {
+			Files.write(stackManifest, manifest.toString().getBytes(StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error writing stack manifest to " + stackManifest, e);
 		}
-		assert active.limit() == data.length;
-
-		ByteBuffer passive = ByteBuffer.allocate(active.capacity());
-
-		try (FileChannel channel = FileChannel.open(stackHistory, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
-			assert channel.position() == 0;
-
-			if (passive.capacity() != active.capacity()) {//It's important the amount of the file read is the same as the amount written
-				throw new IllegalArgumentException("Inconsistent capacities between buffers: " + passive.capacity() + " and " + active.capacity());
-			}
-
-			long offset = passive.capacity() - active.limit(); //Account for reading/writing not necessarily being at the same start/end positions
-			assert offset >= 0;
-			do {
-				long position = channel.position();
-				if (position > 0 && offset > 0) {
-					channel.position(position + offset);
-				}
-
-				passive.clear(); //Ensure the buffer's limit == capacity, as well as position == 0
-
-				int read;
-				do {
-					read = channel.read(passive);
-				} while (read != -1 && passive.hasRemaining());
-				//System.out.println("Read in \"" + new String(passive.array(), 0, passive.position()) + '"');
-				passive.flip();
-
-				channel.position(position);
-
-				//System.out.println("Writing \"" + new String(active.array(), active.position(), active.remaining()) + '"');
-				while (active.hasRemaining()) {
-					channel.write(active);
-				}
-
-				ByteBuffer swap = passive;
-				passive = active;
-				active = swap;
-			} while (active.limit() >= active.capacity());
+	}
 
-			while (active.hasRemaining()) {
-				//System.out.println("Writing final \"" + new String(active.array(), active.position(), active.remaining()) + '"');
-				channel.write(active);
+	/** Moves the given arguments (keyed by named owner, then intermediary method name and descriptor) to the given namespace */
+	private Map<String, String[]> moveArgs(Map<String, String[]> args, String namespace) throws IOException {
+		IndexedMappings mappings = getIndexedMappings();
+		Map<String, String> namedToInter = mappings.getClasses("named", "intermediary");
+		Map<EntryTriple, EntryTriple> methods = mappings.getMethods("intermediary", namespace);
+		UnaryOperator<String> classRemapper = mappings.classRemapper("intermediary", namespace);
+
+		Map<String, String[]> out = new HashMap<>(args.size() * 4 / 3 + 1);
+		for (Entry<String, String[]> entry : args.entrySet()) {
+			String key = entry.getKey();
+			int descStart = key.indexOf('(');
+			int split = key.lastIndexOf('/', descStart);
+
+			String owner = key.substring(0, split);
+			String name = key.substring(split + 1, descStart);
+			String desc = key.substring(descStart);
+
+			EntryTriple method = methods.get(new EntryTriple(namedToInter.getOrDefault(owner, owner), name, desc));
+			if (method != null) {
+				out.put(owner + '/' + method.getName() + method.getDesc(), entry.getValue());
+			} else {//Constructors keep their name, but their descriptor still needs remapping
+				out.put(owner + '/' + name + MappingBlob.remapDesc(desc, classRemapper), entry.getValue());
 			}
-		} catch (IOException e) {
-			throw new UncheckedIOException("Error writing stack history file to " + stackHistory, e);
 		}
+
+		return out;
 	}
 
 	private void initFiles(LoomGradleExtension extension, Logger logger, MinecraftProvider minecraftProvider) {
@@ -910,10 +947,12 @@ public class MappingsProvider extends LogicalDependencyProvider {
 
 		default: {
 			logger.lifecycle(":setting up mappings (" + mappingFiles.size() + " files in stack)");
-			stackHistory = new File(MAPPINGS_DIR, "stack.history").toPath();
+			stackHashes = hashStack(minecraftProvider.minecraftVersion);
 
 			mappingsName = "stack";
-			mappingsVersion = readStackHistory();
+			//Stacks are named after what's in them, so changing any layer makes a new stack
+			mappingsVersion = Iterables.getLast(stackHashes).toString().substring(0, 12);
+			stackManifest = new File(MAPPINGS_DIR, "stack/" + mappingsVersion + ".manifest").toPath();
 			//The stack could be made up of multiple Minecraft versions, so we'll just use the version the stack will run on
 			minecraftVersion = minecraftProvider.minecraftVersion;
 			break;
@@ -923,6 +962,7 @@ public class MappingsProvider extends LogicalDependencyProvider {
 		intermediaryNames = new File(MAPPINGS_DIR, INTERMEDIARY + "-intermediary.tiny");
 		MAPPINGS_TINY_BASE = new File(MAPPINGS_DIR, mappingsName + "-tiny-" + minecraftVersion + '-' + mappingsVersion + "-base.tiny");
 		MAPPINGS_TINY = new File(MAPPINGS_DIR, mappingsName + "-tiny-" + minecraftVersion + '-' + mappingsVersion + ".tiny");
+		mappingsIndex = TinyIndex.getIndexFile(MAPPINGS_TINY.toPath());
 		parameterNames = new File(MAPPINGS_DIR, mappingsName + "-params-" + minecraftVersion + '-' + mappingsVersion).toPath();
 		decompileComments = parameterNames.resolveSibling(mappingsName + "-tiny-" + minecraftVersion + '-' + mappingsVersion + "-decomp.tiny");
 
@@ -930,12 +970,30 @@ public class MappingsProvider extends LogicalDependencyProvider {
 	}
 
 	public void clearFiles() {
+		try {
+			MappingsCache.INSTANCE.invalidate(MAPPINGS_TINY.toPath());
+		} catch (IOException e) {
+			//Not the end of the world, the index might just not be deletable
+		}
 		MAPPINGS_TINY.delete();
 		MAPPINGS_TINY_BASE.delete();
 		intermediaryNames.delete();
+		try {
+			//The index might still be mapped (on Windows) until it is collected, it'll be ignored for the stale source if so
+			Files.deleteIfExists(mappingsIndex);
+		} catch (IOException e) {
+			//Not the end of the world, it won't match the next mappings so will be rebuilt once it can be
+		}
 		try {
 			Files.deleteIfExists(parameterNames);
 			Files.deleteIfExists(decompileComments);
+
+			if (stackManifest != null && Files.exists(stackManifest)) {
+				for (String line : Files.readAllLines(stackManifest)) {
+					Files.deleteIfExists(stackManifest.resolveSibling(line.substring(line.lastIndexOf('\t') + 1)));
+				}
+				Files.delete(stackManifest);
+			}
 		} catch (IOException e) {
 			e.printStackTrace(); //That's troublesome
 		}
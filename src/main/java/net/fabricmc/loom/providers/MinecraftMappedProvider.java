@@ -25,19 +25,26 @@
 package net.fabricmc.loom.providers;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.gradle.api.Project;
 
 import com.google.common.collect.ImmutableSet;
-import com.google.common.io.Files;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.dependencies.DependencyProvider;
 import net.fabricmc.loom.dependencies.LogicalDependencyProvider;
+import net.fabricmc.loom.providers.mappings.AnalysisCache;
+import net.fabricmc.loom.providers.mappings.AnalysisCache.Key;
 import net.fabricmc.loom.providers.openfine.Openfine;
 import net.fabricmc.loom.util.AccessTransformerHelper;
 import net.fabricmc.loom.util.Constants;
@@ -45,6 +52,11 @@ import net.fabricmc.loom.util.MapJarsTiny;
 import net.fabricmc.stitch.util.Pair;
 
 public class MinecraftMappedProvider extends LogicalDependencyProvider {
+    /**
+     * How many of each transformed (or base) jar to keep in the shared store for each Minecraft version, and for how many days unused.
+     * The {@code fabric.loom.storedJars} and {@code fabric.loom.storedJarAge} system properties can change either.
+     */
+    private static final int STORED_JARS = Integer.getInteger("fabric.loom.storedJars", 2), STORED_JAR_AGE = Integer.getInteger("fabric.loom.storedJarAge", 14);
     public File MINECRAFT_MAPPED_JAR;
     public File MINECRAFT_INTERMEDIARY_JAR;
 
@@ -62,7 +74,7 @@ public class MinecraftMappedProvider extends LogicalDependencyProvider {
             throw new RuntimeException("mappings file not found");
         }
 
-        if (java.nio.file.Files.notExists(minecraftProvider.getMergedJar())) {
+        if (Files.notExists(minecraftProvider.getMergedJar())) {
             throw new RuntimeException("input merged jar not found");
         }
 
@@ -87,7 +99,7 @@ public class MinecraftMappedProvider extends LogicalDependencyProvider {
 
     		File lastAT = new File(cache, "last-seen.at");
     		if (lastAT.exists() ? !AccessTransformerHelper.loadATs(lastAT).equals(targets) : !targets.isEmpty()) {
-    			Files.copy(extension.getAT(), lastAT); //Replace the old with the new
+    			Files.copy(extension.getAT().toPath(), lastAT.toPath(), StandardCopyOption.REPLACE_EXISTING); //Replace the old with the new
     			atChange = true;
     		}
         } else {
@@ -105,10 +117,55 @@ public class MinecraftMappedProvider extends LogicalDependencyProvider {
             if (getIntermediaryJar().exists() && !minecraftProvider.getMergedJar().equals(getIntermediaryJar().toPath())) {
                 getIntermediaryJar().delete();
             }
-            if (extension.hasOptiFine()) Openfine.applyBonusMappings(mappingsProvider);
-            MapJarsTiny.mapJars(minecraftProvider, this, project);
-            if (!targets.isEmpty()) MapJarsTiny.transform(project, targets, this, mappingsProvider);
-            if (extension.hasOptiFine()) Openfine.transformRemovals(project.getLogger(), mappingsProvider, getMappedJar());
+
+            //Transformed jars only live in the project's cache, so check if another project has already made the same ones
+            AnalysisCache jarStore = new AnalysisCache(new File(extension.getUserCache(), "transformed_jars").toPath());
+            Key intermediaryKey, namedKey, baseIntermediaryKey, baseNamedKey;
+            //Openfine's changes depend on more than can be easily keyed, as do any custom local namers
+            if (extension.hasAT() && !extension.hasOptiFine() && extension.describeLocalNames() != null) {
+            	intermediaryKey = makeJarKey(jarStore, "intermediary", extension, minecraftProvider, mappingsProvider, targets);
+            	namedKey = makeJarKey(jarStore, "named", extension, minecraftProvider, mappingsProvider, targets);
+            	//The remapped jars before any transformations, so changing the transformations only needs the transforming redoing
+            	baseIntermediaryKey = makeJarKey(jarStore, "base-intermediary", extension, minecraftProvider, mappingsProvider, null);
+            	baseNamedKey = makeJarKey(jarStore, "base-named", extension, minecraftProvider, mappingsProvider, null);
+            	//Each key holds a whole Minecraft jar, so only keep the most recent few around
+            	jarStore.prune(STORED_JARS, STORED_JAR_AGE, TimeUnit.DAYS);
+            } else {
+            	intermediaryKey = namedKey = baseIntermediaryKey = baseNamedKey = null;
+            }
+
+            if (intermediaryKey != null && jarStore.has(intermediaryKey) && jarStore.has(namedKey)
+            		&& jarStore.restore(intermediaryKey, getIntermediaryJar().toPath()) && jarStore.restore(namedKey, getMappedJar().toPath())) {
+            	project.getLogger().lifecycle(":reusing transformed Minecraft jars");
+            } else {
+            	if (extension.hasOptiFine()) Openfine.applyBonusMappings(mappingsProvider);
+            	if (baseIntermediaryKey != null && jarStore.has(baseIntermediaryKey) && jarStore.has(baseNamedKey)
+            			&& jarStore.restore(baseIntermediaryKey, getIntermediaryJar().toPath()) && jarStore.restore(baseNamedKey, getMappedJar().toPath())) {
+            		project.getLogger().lifecycle(":reusing remapped Minecraft jars");
+            		if (!targets.isEmpty()) MapJarsTiny.transform(project, targets, this, mappingsProvider);
+            	} else if (baseIntermediaryKey != null) {
+            		//Transform whilst remapping, but keep the untransformed jars too for when the transformations next change
+            		File baseIntermediary = new File(cache, "base-" + getIntermediaryJar().getName());
+            		File baseNamed = new File(cache, "base-" + getMappedJar().getName());
+            		Files.deleteIfExists(baseIntermediary.toPath());
+            		Files.deleteIfExists(baseNamed.toPath());
+
+            		MapJarsTiny.mapJars(minecraftProvider, this, project, targets, baseIntermediary, baseNamed);
+
+            		jarStore.store(baseIntermediaryKey, baseIntermediary.toPath());
+            		jarStore.store(baseNamedKey, baseNamed.toPath());
+            		Files.delete(baseIntermediary.toPath());
+            		Files.delete(baseNamed.toPath());
+            	} else {
+            		MapJarsTiny.mapJars(minecraftProvider, this, project, targets, null, null);
+            	}
+            	if (extension.hasOptiFine()) Openfine.transformRemovals(project.getLogger(), mappingsProvider, getMappedJar());
+
+            	if (intermediaryKey != null) {
+            		jarStore.store(intermediaryKey, getIntermediaryJar().toPath());
+            		jarStore.store(namedKey, getMappedJar().toPath());
+            	}
+            }
         }
 
         if (!MINECRAFT_MAPPED_JAR.exists()) {
@@ -119,6 +176,29 @@ public class MinecraftMappedProvider extends LogicalDependencyProvider {
         addDependency("net.minecraft:minecraft:".concat(JarNameFactory.MERGED_INTERMEDIARY.getDependencyName(jarName)), project, Constants.MINECRAFT_INTERMEDIARY);
     }
 
+    private Key makeJarKey(AnalysisCache jarStore, String name, LoomGradleExtension extension, MinecraftProvider minecraftProvider,
+    		MappingsProvider mappingsProvider, Set<Pair<String, String>> targets) throws IOException {
+    	//Keyed by version too so that projects on different versions don't keep pruning out each other's jars
+    	Key key = jarStore.key(name + '-' + minecraftProvider.minecraftVersion, MapJarsTiny.class).put(minecraftProvider.getMergedJar()).put(minecraftProvider.getMergeStrategy().name())
+    			.put(mappingsProvider.MAPPINGS_TINY.toPath()).put(Boolean.toString(extension.shouldBulldozeMappings()))
+    			.put(Boolean.toString(extension.shouldAddVersionIfNeeded())).put(extension.describeLocalNames())
+    			.put(extension.getTokens().entrySet().stream().map(token -> token.getKey() + '=' + token.getValue()).sorted().collect(Collectors.joining(";")));
+
+    	Path parameterNames = mappingsProvider.getParameterNames();
+    	key.put(Boolean.toString(Files.exists(parameterNames)));
+    	if (Files.exists(parameterNames)) key.put(parameterNames);
+
+    	for (File library : getMapperPaths()) {
+    		key.put(library.toPath());
+    	}
+
+    	if (targets != null) {
+    		key.put(targets.stream().map(target -> target.getRight() != null ? target.getLeft() + ' ' + target.getRight() : target.getLeft()).sorted().collect(Collectors.joining("\n")));
+    	}
+
+    	return key;
+    }
+
     public Collection<File> getMapperPaths() {
         return getProvider(MinecraftLibraryProvider.class).getLibraries();
     }
@@ -29,9 +29,11 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.zip.ZipError;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.Callables;
 import com.google.gson.Gson;
 
@@ -144,18 +146,35 @@ public class MinecraftProvider extends PhysicalDependencyProvider implements Min
 						JarNamingStrategy nameStrategy = makeNamingStrategy();
 
 						Path interClient = mergedJar.toPath().resolveSibling(JarNameFactory.CLIENT_INTERMEDIARY.getJarName(nameStrategy));
-						if (Files.notExists(interClient)) {
-							//Can't use the library provider yet as the configuration might need more things adding to it
-							Set<File> libraries = getJavaLibraries(project);
-							MapJarsTiny.remapJar(logger, clientJar.toPath(), mappings, false, libraries, interClient, "client");
-						}
-
 						Path interServer = interClient.resolveSibling(JarNameFactory.SERVER_INTERMEDIARY.getJarName(nameStrategy));
-						if (Files.notExists(interServer)) {
+
+						//The remaps have nothing to do with each other, so the server can be done at the same time as the client
+						ForkJoinTask<?> serverRemap = Files.notExists(interServer) ? ForkJoinTask.adapt(() -> {
 							Set<File> libraries = Collections.emptySet(); //The server contains all its own dependencies
 							MapJarsTiny.remapJar(logger, serverJar.toPath(), mappings, false, libraries, interServer, "server");
+						}).fork() : null;
+
+						try {
+							if (Files.notExists(interClient)) {
+								//Can't use the library provider yet as the configuration might need more things adding to it
+								Set<File> libraries = getJavaLibraries(project);
+								MapJarsTiny.remapJar(logger, clientJar.toPath(), mappings, false, libraries, interClient, "client");
+							}
+						} catch (Throwable t) {
+							//Wait for the server to finish too, so whatever might have gone wrong with it isn't lost
+							if (serverRemap != null) {
+								try {
+									serverRemap.join();
+								} catch (Throwable e) {
+									t.addSuppressed(e);
+								}
+							}
+
+							throw t;
 						}
 
+						if (serverRemap != null) serverRemap.join();
+
 						MinecraftProvider.mergeJars(logger, interClient.toFile(), interServer.toFile(), mergedJar);
 					}
 
@@ -516,11 +535,15 @@ public class MinecraftProvider extends PhysicalDependencyProvider implements Min
 
 	private static void mergeJars(Logger logger, File MINECRAFT_CLIENT_JAR, File MINECRAFT_SERVER_JAR, File MINECRAFT_MERGED_JAR) throws IOException {
 		logger.lifecycle(":merging jars");
+		Stopwatch stopwatch = Stopwatch.createStarted();
 
+		//Stitch already reads the client and server on their own threads and merges the class pairs in parallel, only writing the merged jar out is sequential
 		try (JarMerger jarMerger = new JarMerger(MINECRAFT_CLIENT_JAR, MINECRAFT_SERVER_JAR, MINECRAFT_MERGED_JAR)) {
 			jarMerger.enableSyntheticParamsOffset();
 			jarMerger.merge();
 		}
+
+		logger.info(":merged " + MINECRAFT_MERGED_JAR.getName() + " in " + stopwatch.elapsed(TimeUnit.MILLISECONDS) + "ms");
 	}
 
 
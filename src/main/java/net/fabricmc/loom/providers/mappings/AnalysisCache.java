@@ -0,0 +1,177 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import net.fabricmc.loom.util.FileHashes;
+
+/**
+ * Keeps the output of slow whole jar analyses (such as Stitch proposing field names) keyed by everything which went into them,
+ * so they can be reused when the same inputs come up again, even if they came from a different version of the mappings.
+ * The same goes for whole jars derived from others, which can then be shared between every project using the same inputs.
+ *
+ * @author Chocohead
+ */
+public final class AnalysisCache {
+	/** The inputs which go into an analysis, the output will only be reused if every one of them is the same */
+	public static final class Key {
+		final String name;
+		private final Hasher hasher;
+		private HashCode hash;
+
+		@SuppressWarnings("deprecation") //Not for security, just identity
+		Key(String name, Class<?> tool) throws IOException {
+			this.name = name;
+			hasher = Hashing.sha1().newHasher();
+
+			put(name);
+			put(describe(tool));
+		}
+
+		private static String describe(Class<?> tool) throws IOException {
+			CodeSource source = tool.getProtectionDomain().getCodeSource();
+
+			if (source != null && source.getLocation() != null) {
+				try {
+					Path location = Paths.get(source.getLocation().toURI());
+					if (Files.isRegularFile(location)) return FileHashes.sha1(location).toString();
+				} catch (URISyntaxException | IllegalArgumentException e) {
+					//Not somewhere we can read from, fall back to the version instead
+				}
+			}
+
+			return tool.getName() + ' ' + tool.getPackage().getImplementationVersion();
+		}
+
+		/** Adds the content of the given file as an input */
+		public Key put(Path file) throws IOException {
+			hasher.putBytes(FileHashes.sha1(file).asBytes());
+			return this;
+		}
+
+		/** Adds the given option as an input */
+		public Key put(String option) {
+			hasher.putInt(option.length()).putString(option, StandardCharsets.UTF_8);
+			return this;
+		}
+
+		HashCode hash() {
+			if (hash == null) hash = hasher.hash();
+			return hash;
+		}
+	}
+
+	private final Path cacheDir;
+
+	public AnalysisCache(Path cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/** Starts a key for the analysis of the given name, done by the given tool (whose version is included in the key) */
+	public Key key(String name, Class<?> tool) throws IOException {
+		return new Key(name, tool);
+	}
+
+	private Path getCached(Key key) {
+		return cacheDir.resolve(key.name + '-' + key.hash());
+	}
+
+	/** Whether there is an output for the analysis with the given key which can be {@link #restore(Key, Path) restored} */
+	public boolean has(Key key) {
+		return Files.isRegularFile(getCached(key));
+	}
+
+	/**
+	 * Copies the output of the analysis with the given key to the given file, if it has been {@link #store(Key, Path) stored} before.
+	 *
+	 * @return Whether there was a cached output, if not the analysis will need running
+	 */
+	public boolean restore(Key key, Path output) throws IOException {
+		Path cached = getCached(key);
+		if (!Files.isRegularFile(cached)) return false;
+
+		try {
+			Files.copy(cached, output, StandardCopyOption.REPLACE_EXISTING);
+			Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis())); //Mark as recently used for pruning
+		} catch (NoSuchFileException e) {
+			return false; //Pruned out from under us
+		}
+
+		return true;
+	}
+
+	/** Keeps a copy of the given output of the analysis with the given key to {@link #restore(Key, Path) restore} next time */
+	public void store(Key key, Path output) throws IOException {
+		Path temp = null;
+		try {
+			Files.createDirectories(cacheDir);
+			temp = Files.createTempFile(cacheDir, key.name, ".tmp");
+			Files.copy(output, temp, StandardCopyOption.REPLACE_EXISTING);
+			Files.move(temp, getCached(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			//Not the end of the world, the analysis will just run again next time
+			if (temp != null) Files.deleteIfExists(temp);
+		}
+	}
+
+	/** Deletes all but the given number of most recently used outputs for each analysis, along with any not used within the given time */
+	public void prune(int keepEach, long maxAge, TimeUnit unit) throws IOException {
+		if (!Files.isDirectory(cacheDir)) return;
+
+		Map<String, List<Path>> outputs = new HashMap<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(cacheDir)) {
+			for (Path output : stream) {
+				String name = output.getFileName().toString();
+				int split = name.lastIndexOf('-');
+				outputs.computeIfAbsent(split > 0 ? name.substring(0, split) : name, k -> new ArrayList<>()).add(output);
+			}
+		}
+
+		long cutoff = System.currentTimeMillis() - unit.toMillis(maxAge);
+		for (List<Path> group : outputs.values()) {
+			Map<Path, Long> lastUsed = new HashMap<>();
+			for (Path output : group) {
+				lastUsed.put(output, Files.getLastModifiedTime(output).toMillis());
+			}
+			group.sort(Comparator.comparing(lastUsed::get, Comparator.reverseOrder()));
+
+			for (int i = 0; i < group.size(); i++) {
+				Path output = group.get(i);
+
+				if (i >= keepEach || lastUsed.get(output) < cutoff) {
+					try {
+						Files.deleteIfExists(output);
+					} catch (IOException e) {
+						//Probably being used by something else, it can be tried again next time
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping;
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Method;
+
+/**
+ * Finds the bridge methods in a jar along with the specialised methods they call, following the same rules as Enigma does when
+ * mapping specialised methods. The pairs only depend on the jar, so they can be kept and {@link #apply(Path, MappingBlob) applied}
+ * to any Enigma mappings for it rather than converting the whole of the mappings again each time they change.
+ *
+ * @author Chocohead
+ */
+public final class BridgeMethods {
+	private static class MethodInfo {
+		final String owner, name, desc;
+		final int access;
+		final Set<String> references = new LinkedHashSet<>();
+
+		MethodInfo(String owner, String name, String desc, int access) {
+			this.owner = owner;
+			this.name = name;
+			this.desc = desc;
+			this.access = access;
+		}
+	}
+
+	private BridgeMethods() {
+	}
+
+	/** Finds every bridge and specialised method pair in the given jar, writing them out to the given file */
+	public static void find(Path jar, Path output) throws IOException {
+		Map<String, List<String>> parents = new HashMap<>();
+		Map<String, Set<String>> methods = new HashMap<>();
+		List<MethodInfo> synthetics = new ArrayList<>();
+
+		try (ZipFile zip = new ZipFile(jar.toFile())) {
+			for (Enumeration<? extends ZipEntry> it = zip.entries(); it.hasMoreElements();) {
+				ZipEntry entry = it.nextElement();
+				if (entry.isDirectory() || !entry.getName().endsWith(".class")) continue;
+
+				try (InputStream in = zip.getInputStream(entry)) {
+					new ClassReader(in).accept(new ClassVisitor(Opcodes.ASM7) {
+						private String name;
+
+						@Override
+						public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+							this.name = name;
+
+							List<String> classParents = new ArrayList<>();
+							if (superName != null) classParents.add(superName);
+							if (interfaces != null) for (String itf : interfaces) classParents.add(itf);
+							parents.put(name, classParents);
+						}
+
+						@Override
+						public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+							methods.computeIfAbsent(this.name, k -> new HashSet<>()).add(name + descriptor);
+							if ((access & Opcodes.ACC_SYNTHETIC) == 0) return null;
+
+							MethodInfo method = new MethodInfo(this.name, name, descriptor, access);
+							synthetics.add(method);
+
+							return new MethodVisitor(Opcodes.ASM7) {
+								@Override
+								public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
+									method.references.add(owner + '\t' + name + '\t' + descriptor);
+								}
+
+								@Override
+								public void visitInvokeDynamicInsn(String name, String descriptor, Handle bootstrapMethodHandle, Object... bootstrapMethodArguments) {
+									for (Object argument : bootstrapMethodArguments) {
+										if (argument instanceof Handle && ((Handle) argument).getTag() >= Opcodes.H_INVOKEVIRTUAL) {
+											Handle handle = (Handle) argument;
+											method.references.add(handle.getOwner() + '\t' + handle.getName() + '\t' + handle.getDesc());
+										}
+									}
+								}
+							};
+						}
+					}, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+				}
+			}
+		}
+
+		List<String> pairs = new ArrayList<>();
+		for (MethodInfo method : synthetics) {
+			//A bridge only ever calls the method it is bridging to
+			if (method.references.size() != 1) continue;
+
+			String[] target = method.references.iterator().next().split("\t");
+			String owner = resolveOwner(target[0], target[1] + target[2], parents, methods);
+
+			if ((method.access & Opcodes.ACC_BRIDGE) != 0 || isPotentialBridge(method, target[2], parents)) {
+				pairs.add(method.owner + '\t' + method.name + '\t' + method.desc + '\t' + owner + '\t' + target[1] + '\t' + target[2]);
+			}
+		}
+		pairs.sort(null);
+
+		try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+			for (String pair : pairs) {
+				writer.write(pair);
+				writer.newLine();
+			}
+		}
+	}
+
+	private static String resolveOwner(String owner, String method, Map<String, List<String>> parents, Map<String, Set<String>> methods) {
+		//Calls can be made through subclasses of the class which actually has the method
+		for (String type = owner; type != null;) {
+			if (methods.getOrDefault(type, Collections.emptySet()).contains(method)) return type;
+
+			List<String> typeParents = parents.get(type);
+			type = typeParents != null && !typeParents.isEmpty() ? typeParents.get(0) : null;
+		}
+
+		return owner;
+	}
+
+	private static boolean isPotentialBridge(MethodInfo bridge, String specialisedDesc, Map<String, List<String>> parents) {
+		//Bridges only exist to be inherited, which can't happen if they're private, final or static
+		if ((bridge.access & (Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL | Opcodes.ACC_STATIC)) != 0) return false;
+
+		Type[] bridgeArgs = Type.getArgumentTypes(bridge.desc);
+		Type[] specialisedArgs = Type.getArgumentTypes(specialisedDesc);
+		if (bridgeArgs.length != specialisedArgs.length) return false;
+
+		for (int i = 0; i < bridgeArgs.length; i++) {
+			if (!areBridgeCompatible(bridgeArgs[i], specialisedArgs[i], parents)) return false;
+		}
+
+		return areBridgeCompatible(Type.getReturnType(bridge.desc), Type.getReturnType(specialisedDesc), parents);
+	}
+
+	private static boolean areBridgeCompatible(Type bridge, Type specialised, Map<String, List<String>> parents) {
+		if (bridge.equals(specialised)) return true;
+		if (bridge.getSort() != Type.OBJECT || specialised.getSort() != Type.OBJECT) return false;
+
+		//Otherwise the specialised type needs to extend the bridge's
+		Set<String> seen = new HashSet<>();
+		Queue<String> queue = new ArrayDeque<>(parents.getOrDefault(specialised.getInternalName(), Collections.emptyList()));
+		for (String type = queue.poll(); type != null; type = queue.poll()) {
+			if (type.equals(bridge.getInternalName())) return true;
+			if (seen.add(type)) queue.addAll(parents.getOrDefault(type, Collections.emptyList()));
+		}
+
+		return false;
+	}
+
+	/**
+	 * Gives each specialised method in the given pairs the name of the bridge calling it, where the bridge is named in the given mappings.
+	 * Specialised methods which already have a name of their own keep it.
+	 */
+	public static void apply(Path pairs, MappingBlob mappings) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(pairs)) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.isEmpty()) continue;
+
+				String[] parts = line.split("\t");
+				if (parts.length != 6) throw new IOException("Invalid bridge method line: " + line);
+				if (!mappings.has(parts[0])) continue;
+
+				Mapping owner = mappings.get(parts[0]);
+				if (!owner.hasMethod(new Method(parts[1], parts[2]))) continue;
+
+				Method bridge = owner.method(parts[1], parts[2]);
+				if (bridge.name() == null || bridge.name().equals(bridge.fromName)) continue;
+
+				Method specialised = mappings.get(parts[3]).method(parts[4], parts[5]);
+				if (specialised.name() == null) specialised.setMapping(bridge.name(), null);
+				if (specialised.comment == null) specialised.comment = bridge.comment;
+			}
+		}
+	}
+}
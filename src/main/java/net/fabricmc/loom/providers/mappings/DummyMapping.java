@@ -74,21 +74,11 @@ class DummyMapping extends Mapping {
 			return false;
 		}
 
-		@Override
-		Arg[] cloneArgs() {
-			return new Arg[0];
-		}
-
 		@Override
 		void cloneArgs(Method method) {
 			throw new UnsupportedOperationException("Cannot add an argument to a dummy method");
 		}
 
-		@Override
-		Arg[] extendArgs(Method that) {
-			return that.cloneArgs();
-		}
-
 		@Override
 		public String arg(int index) {
 			return null;
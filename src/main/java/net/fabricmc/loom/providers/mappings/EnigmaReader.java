@@ -26,22 +26,30 @@ package net.fabricmc.loom.providers.mappings;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Queue;
 import java.util.stream.Stream;
 
 public class EnigmaReader {
-	public static void readEnigma(Path dir, IMappingAcceptor mappingAcceptor) throws IOException {
-		try (Stream<Path> stream = Files.find(FileSystems.newFileSystem(dir, null).getPath("/"),
+	/**
+	 * Read the given Enigma mappings into the given blob, parsing each file concurrently into its own blob.
+	 * The file blobs are merged in path order, so the result doesn't depend on which thread finishes first.
+	 */
+	public static void readEnigmaParallel(Path dir, MappingBlob mappings) throws IOException {
+		try (FileSystem fs = FileSystems.newFileSystem(dir, null); Stream<Path> stream = Files.find(fs.getPath("/"),
 				Integer.MAX_VALUE,
 				(path, attr) -> attr.isRegularFile() && path.getFileName().toString().endsWith(".mapping"),
 				FileVisitOption.FOLLOW_LINKS)) {
-			stream.forEach(file -> readEnigmaFile(file, mappingAcceptor));
+			Path[] files = stream.sorted().toArray(Path[]::new);
+
+			mappings.absorb(Arrays.stream(files).parallel().collect(MappingBlob::new, (blob, file) -> readEnigmaFile(file, blob), MappingBlob::absorb));
 		} catch (UncheckedIOException e) {
 			throw e.getCause();
 		}
@@ -53,6 +61,7 @@ public class EnigmaReader {
 			Queue<String> contextStack = Collections.asLifoQueue(new ArrayDeque<>());
 			Queue<String> contextNamedStack = Collections.asLifoQueue(new ArrayDeque<>());
 			int indent = 0;
+			StringBuilder comment = null;
 
 			while ((line = reader.readLine()) != null) {
 				if (line.isEmpty()) continue;
@@ -76,6 +85,7 @@ public class EnigmaReader {
 
 				line = line.substring(indent);
 				String[] parts = line.split(" ");
+				if (!"COMMENT".equals(parts[0])) comment = null;
 
 				switch (parts[0]) {
 				case "CLASS":
@@ -180,8 +190,58 @@ public class EnigmaReader {
 						contextNamedStack.add('F' + parts[1]); //No name, but we still need something to avoid underflowing
 					}
 					break;
-				case "COMMENT":
+				case "COMMENT": {
+					//Each line of a comment is given separately, but accepting a comment replaces whatever was there before
+					String text = line.length() > 8 ? unescape(line.substring(8)) : "";
+					if (comment == null) {
+						comment = new StringBuilder(text);
+					} else {
+						comment.append('\n').append(text);
+					}
+
+					String target = contextStack.poll();
+					if (target == null) throw new IOException("invalid enigma line (comment without context): "+line);
+
+					switch (target.charAt(0)) {
+					case 'C':
+						mappingAcceptor.acceptClassComment(target.substring(1), comment.toString());
+						break;
+
+					case 'M': {
+						String classContext = contextStack.peek();
+						int methodDescStart = target.indexOf('(');
+						mappingAcceptor.acceptMethodComment(classContext.substring(1), target.substring(1, methodDescStart), target.substring(methodDescStart), comment.toString());
+						break;
+					}
+
+					case 'F': {
+						String classContext = contextStack.peek();
+						int fieldDescStart = target.indexOf('#');
+						mappingAcceptor.acceptFieldComment(classContext.substring(1), target.substring(1, fieldDescStart), target.substring(fieldDescStart + 1), comment.toString());
+						break;
+					}
+
+					case 'A': {
+						String methodContext = contextStack.poll();
+						String classContext = contextStack.peek();
+						contextStack.add(methodContext);
+
+						int methodDescStart = methodContext.indexOf('(');
+						mappingAcceptor.acceptMethodArgComment(classContext.substring(1), methodContext.substring(1, methodDescStart),
+								methodContext.substring(methodDescStart), Integer.parseInt(target.substring(1)), comment.toString());
+						break;
+					}
+
+					case 'V':
+						break; //Local variables aren't supported (and throw if they are named anyway)
+
+					default:
+						throw new IllegalStateException("Unexpected context: " + target);
+					}
+
+					contextStack.add(target);
 					break;
+				}
 				default:
 					throw new IOException("invalid enigma line (unknown type): "+line);
 				}
@@ -190,4 +250,37 @@ public class EnigmaReader {
 			throw new UncheckedIOException(e);
 		}
 	}
+
+	private static String unescape(String text) {
+		if (text.indexOf('\\') < 0) return text;
+
+		StringBuilder out = new StringBuilder(text.length());
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+
+			if (c == '\\' && i + 1 < text.length()) {
+				switch (c = text.charAt(++i)) {
+				case 'n':
+					c = '\n';
+					break;
+
+				case 'r':
+					c = '\r';
+					break;
+
+				case 't':
+					c = '\t';
+					break;
+
+				case '0':
+					c = '\0';
+					break;
+				}
+			}
+
+			out.append(c);
+		}
+
+		return out.toString();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.fabricmc.stitch.commands.CommandProposeFieldNames;
+import net.fabricmc.stitch.commands.CommandProposeFieldNames.NameAcceptor;
+
+/**
+ * The field names Stitch proposes for a jar, kept apart from the mappings they were proposed for.
+ * Stitch only looks at the jar and the fields' Intermediary names to come up with them, so they can be worked out once against
+ * {@link #writeBlank(Path, Path) blank} mappings and then {@link #apply(Path, Path, Path) applied} to any named mappings for the same jar.
+ *
+ * @author Chocohead
+ */
+public final class FieldProposals {
+	private FieldProposals() {
+	}
+
+	/** Copies the given tiny v1 mappings to the given file with every named name replaced by its Intermediary name */
+	public static void writeBlank(Path mappings, Path output) throws IOException {
+		TinyTokenizer tokenizer = TinyTokenizer.read(mappings);
+		if (!tokenizer.nextLine()) throw new IOException("Empty tiny file: " + mappings);
+
+		int named = findColumn(tokenizer, "named", mappings);
+		int intermediary = findColumn(tokenizer, "intermediary", mappings);
+
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+			do {
+				int offset = memberOffset(tokenizer);
+
+				if (offset >= 0 && tokenizer.columns() > offset + named && tokenizer.columns() > offset + intermediary) {
+					writeReplacing(tokenizer, offset + named, tokenizer.column(offset + intermediary), out);
+				} else {
+					tokenizer.writeLine(out);
+				}
+				out.write('\n');
+			} while (tokenizer.nextLine());
+		}
+	}
+
+	/**
+	 * Has Stitch propose names for the fields in the given jar using the given {@link #writeBlank(Path, Path) blank} mappings,
+	 * writing out the fields which are given a name to the given file
+	 */
+	public static void propose(Path jar, Path blank, String namespace, NameAcceptor filter, Path output) throws IOException {
+		Path proposed = Files.createTempFile(output.toAbsolutePath().getParent(), "proposed", ".tiny");
+
+		try {
+			CommandProposeFieldNames.run(jar.toFile(), blank.toFile(), proposed.toFile(), namespace, "named", filter);
+
+			TinyTokenizer tokenizer = TinyTokenizer.read(proposed);
+			if (!tokenizer.nextLine()) throw new IOException("Stitch proposed an empty tiny file?");
+
+			int named = findColumn(tokenizer, "named", proposed) + 3;
+			int intermediary = findColumn(tokenizer, "intermediary", proposed) + 3;
+
+			try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+				while (tokenizer.nextLine()) {
+					if (!tokenizer.columnEquals(0, "FIELD") || tokenizer.columns() <= Math.max(named, intermediary)) continue;
+
+					String name = tokenizer.column(named);
+					if (name.equals(tokenizer.column(intermediary))) continue;
+
+					//The owner, descriptor and name in the first namespace, then the proposed name
+					writer.write(tokenizer.column(1));
+					writer.write('\t');
+					writer.write(tokenizer.column(2));
+					writer.write('\t');
+					writer.write(tokenizer.column(3));
+					writer.write('\t');
+					writer.write(name);
+					writer.newLine();
+				}
+			}
+		} finally {
+			Files.deleteIfExists(proposed);
+		}
+	}
+
+	/**
+	 * Copies the given tiny v1 mappings to the given file, naming each field which is still only named after its Intermediary
+	 * with the name {@link #propose(Path, Path, String, NameAcceptor, Path) proposed} for it (as the default field inference filter would).
+	 */
+	public static void apply(Path mappings, Path proposals, Path output) throws IOException {
+		Map<String, String> names = new HashMap<>();
+		try (BufferedReader reader = Files.newBufferedReader(proposals)) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.isEmpty()) continue;
+
+				int split = line.lastIndexOf('\t');
+				if (split <= 0) throw new IOException("Invalid field proposal line: " + line);
+				names.put(line.substring(0, split), line.substring(split + 1));
+			}
+		}
+
+		TinyTokenizer tokenizer = TinyTokenizer.read(mappings);
+		if (!tokenizer.nextLine()) throw new IOException("Empty tiny file: " + mappings);
+
+		int named = findColumn(tokenizer, "named", mappings) + 3;
+
+		try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output))) {
+			do {
+				String name;
+				if (tokenizer.columnEquals(0, "FIELD") && tokenizer.columns() > named && tokenizer.column(named).startsWith("field_")
+						&& (name = names.get(tokenizer.column(1) + '\t' + tokenizer.column(2) + '\t' + tokenizer.column(3))) != null) {
+					writeReplacing(tokenizer, named, name, out);
+				} else {
+					tokenizer.writeLine(out);
+				}
+				out.write('\n');
+			} while (tokenizer.nextLine());
+		}
+	}
+
+	private static int findColumn(TinyTokenizer header, String namespace, Path file) throws IOException {
+		if (!header.columnEquals(0, "v1")) throw new IOException("Expected tiny v1 mappings: " + file);
+
+		for (int column = 1; column < header.columns(); column++) {
+			if (header.columnEquals(column, namespace)) return column - 1;
+		}
+
+		throw new IOException("Missing " + namespace + " namespace in " + file);
+	}
+
+	/** The column of the first namespace's name in the current line, or {@code -1} if the line isn't a class or member */
+	private static int memberOffset(TinyTokenizer tokenizer) {
+		if (tokenizer.columnEquals(0, "CLASS")) return 1;
+		if (tokenizer.columnEquals(0, "METHOD") || tokenizer.columnEquals(0, "FIELD")) return 3;
+		return -1;
+	}
+
+	private static void writeReplacing(TinyTokenizer tokenizer, int column, String replacement, OutputStream out) throws IOException {
+		for (int i = 0; i < tokenizer.columns(); i++) {
+			if (i > 0) out.write('\t');
+
+			if (i == column) {
+				out.write(replacement.getBytes(StandardCharsets.UTF_8));
+			} else {
+				tokenizer.writeColumn(i, out);
+			}
+		}
+	}
+}
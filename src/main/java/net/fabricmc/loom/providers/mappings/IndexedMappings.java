@@ -0,0 +1,140 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
+
+import net.fabricmc.mappings.ClassEntry;
+import net.fabricmc.mappings.EntryTriple;
+import net.fabricmc.mappings.FieldEntry;
+import net.fabricmc.mappings.Mappings;
+import net.fabricmc.mappings.MethodEntry;
+
+/**
+ * A view over a loaded {@link Mappings} which can look up names going from one namespace to another without walking every entry.
+ *
+ * <p>The maps between each pair of namespaces are only built the first time they are asked for, then kept for as long as the view is.
+ * Entries missing a name in either namespace are left out. Other models of the mappings (such as Lorenz's) can be {@link #derive(Object, Function) derived}
+ * in the same way, so everything using the same mappings shares a single copy rather than each building their own.
+ *
+ * @author Chocohead
+ */
+public final class IndexedMappings implements Mappings {
+	private final Mappings mappings;
+	private final ConcurrentMap<String, Map<String, String>> classes = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Map<EntryTriple, EntryTriple>> fields = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, Map<EntryTriple, EntryTriple>> methods = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ListMultimap<String, FieldEntry>> fieldsByName = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Object, Object> derived = new ConcurrentHashMap<>();
+
+	public IndexedMappings(Mappings mappings) {
+		this.mappings = mappings;
+	}
+
+	/** The mappings which are being indexed */
+	public Mappings getMappings() {
+		return mappings;
+	}
+
+	@Override
+	public Collection<String> getNamespaces() {
+		return mappings.getNamespaces();
+	}
+
+	@Override
+	public Collection<ClassEntry> getClassEntries() {
+		return mappings.getClassEntries();
+	}
+
+	@Override
+	public Collection<FieldEntry> getFieldEntries() {
+		return mappings.getFieldEntries();
+	}
+
+	@Override
+	public Collection<MethodEntry> getMethodEntries() {
+		return mappings.getMethodEntries();
+	}
+
+	private static String key(String from, String to) {
+		return from + '\t' + to;
+	}
+
+	/** The names of every class in the {@code from} namespace, mapped to their names in the {@code to} namespace */
+	public Map<String, String> getClasses(String from, String to) {
+		return classes.computeIfAbsent(key(from, to), k -> {
+			Collection<ClassEntry> entries = mappings.getClassEntries();
+			Map<String, String> out = new HashMap<>(entries.size() * 4 / 3 + 1);
+
+			for (ClassEntry entry : entries) {
+				String fromName = entry.get(from);
+				String toName = entry.get(to);
+				if (fromName != null && toName != null) out.put(fromName, toName);
+			}
+
+			return Collections.unmodifiableMap(out);
+		});
+	}
+
+	/** Remaps class names from the {@code from} namespace to the {@code to} namespace, leaving any which are not mapped as they are */
+	public UnaryOperator<String> classRemapper(String from, String to) {
+		Map<String, String> classes = getClasses(from, to);
+		return name -> classes.getOrDefault(name, name);
+	}
+
+	/** Every field in the {@code from} namespace, mapped to what it is in the {@code to} namespace */
+	public Map<EntryTriple, EntryTriple> getFields(String from, String to) {
+		return fields.computeIfAbsent(key(from, to), k -> index(mappings.getFieldEntries(), entry -> entry.get(from), entry -> entry.get(to)));
+	}
+
+	/** Every method in the {@code from} namespace, mapped to what it is in the {@code to} namespace */
+	public Map<EntryTriple, EntryTriple> getMethods(String from, String to) {
+		return methods.computeIfAbsent(key(from, to), k -> index(mappings.getMethodEntries(), entry -> entry.get(from), entry -> entry.get(to)));
+	}
+
+	private static <T> Map<EntryTriple, EntryTriple> index(Collection<T> entries, Function<T, EntryTriple> from, Function<T, EntryTriple> to) {
+		Map<EntryTriple, EntryTriple> out = new HashMap<>(entries.size() * 4 / 3 + 1);
+
+		for (T entry : entries) {
+			EntryTriple fromTriple = from.apply(entry);
+			EntryTriple toTriple = to.apply(entry);
+			if (fromTriple != null && toTriple != null) out.put(fromTriple, toTriple);
+		}
+
+		return Collections.unmodifiableMap(out);
+	}
+
+	/** Every field entry whose name in the given namespace is the given name, regardless of the owner or descriptor */
+	public List<FieldEntry> getFieldsNamed(String namespace, String name) {
+		return fieldsByName.computeIfAbsent(namespace, k -> Multimaps.index(mappings.getFieldEntries().stream().filter(entry -> entry.get(namespace) != null).iterator(),
+				entry -> entry.get(namespace).getName())).get(name);
+	}
+
+	/**
+	 * Gets something made from these mappings, making it with the given factory if nothing has been made with the key yet.
+	 * The key needs to cover anything the factory uses besides the mappings themselves, such as which namespaces it goes between.
+	 *
+	 * <p>Whatever is made is shared with anything else asking for the same key, so should not be changed afterwards.
+	 * The factory should not derive anything itself.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T derive(Object key, Function<? super IndexedMappings, ? extends T> factory) {
+		return (T) derived.computeIfAbsent(key, k -> factory.apply(this));
+	}
+}
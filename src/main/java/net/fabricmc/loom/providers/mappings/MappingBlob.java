@@ -15,12 +15,14 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 import java.util.function.ObjIntConsumer;
 import java.util.function.UnaryOperator;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Streams;
 
@@ -33,10 +35,9 @@ import net.fabricmc.mappings.EntryTriple;
 public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 	public static class Mapping {
 		public static class Method extends Field {
-			static class Arg {
-				String name, comment;
-			}
-			private Arg[] args = new Arg[0];
+			private static final String[] NO_ARGS = new String[0];
+			//Parallel arrays indexed by local variable index, either might be shorter than the other
+			private String[] argNames = NO_ARGS, argComments = NO_ARGS;
 
 			public Method(String fromName, String fromDesc) {
 				super(fromName, fromDesc);
@@ -47,22 +48,16 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 				}
 			}
 
-			private Arg extendTo(int index) {
-				if (args.length <= index) {
-					Arg[] longerArgs = new Arg[index + 1];
-					System.arraycopy(args, 0, longerArgs, 0, args.length);
-					args = longerArgs;
-				}
-
-				return args[index] == null ? args[index] = new Arg() : args[index];
+			private static String[] extendTo(String[] args, int index) {
+				return args.length <= index ? Arrays.copyOf(args, index + 1) : args;
 			}
 
 			void addArg(int index, String name) {
-				extendTo(index).name = name;
+				(argNames = extendTo(argNames, index))[index] = intern(name);
 			}
 
 			void addArgComment(int index, String comment) {
-				extendTo(index).comment = comment;
+				(argComments = extendTo(argComments, index))[index] = comment;
 			}
 
 			public boolean hasAnyComments() {
@@ -70,89 +65,56 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 			}
 
 			public boolean hasArgs() {
-				return args.length > 0;
+				return argNames.length > 0 || argComments.length > 0;
 			}
 
 			public boolean hasArgNames() {
-				return Arrays.stream(args).filter(Objects::nonNull).anyMatch(arg -> arg.name != null);
+				return Arrays.stream(argNames).anyMatch(Objects::nonNull);
 			}
 
 			public boolean hasArgComments() {
-				return Arrays.stream(args).filter(Objects::nonNull).anyMatch(arg -> arg.comment != null);
-			}
-
-			Arg[] cloneArgs() {
-				return Arrays.stream(args).map(arg -> {
-					if (arg == null) return null;
-					Arg clone = new Arg();
-
-					clone.name = arg.name;
-					clone.comment = arg.comment;
-
-					return clone;
-				}).toArray(Arg[]::new);
+				return Arrays.stream(argComments).anyMatch(Objects::nonNull);
 			}
 
 			void cloneArgs(Method method) {
-				if (method.args.length > args.length) args = new Arg[method.args.length];
-
-				for (int i = 0; i < method.args.length; i++) {
-					Arg arg = method.args[i];
-					if (arg == null) continue;
-
-					Arg clone = args[i] == null ? args[i] = new Arg() : args[i];
-					clone.name = arg.name;
-					clone.comment = arg.comment;
+				int length = Math.max(method.argNames.length, method.argComments.length);
+				if (length > Math.max(argNames.length, argComments.length)) {
+					argNames = argComments = NO_ARGS;
 				}
-			}
 
-			Arg[] extendArgs(Method that) {
-				Arg[] args = new Arg[Math.max(this.args.length, that.args.length)];
+				for (int i = 0; i < length; i++) {
+					String name = method.arg(i);
+					String comment = method.argComment(i).orElse(null);
+					if (name == null && comment == null) continue;
 
-				Arg[] shorter = args.length == this.args.length ? that.args : this.args;
-				assert shorter.length == Math.min(this.args.length, that.args.length);
-				Arg[] longer = shorter == this.args ? that.args : this.args;
-				assert longer.length == args.length;
-
-				for (int i = 0; i < shorter.length; i++) {
-					Arg existing = this.args[i];
-					Arg other = that.args[i];
-					if (existing == null && other == null) continue; //Neither have a suggestion
-
-					Arg clone = args[i] = new Arg();
-					clone.name = existing != null && existing.name != null ? existing.name : other != null ? other.name : null;
-					clone.comment = existing != null && existing.comment != null ? existing.comment : other != null ? other.comment : null;
-				}
-
-				for (int i = shorter.length; i < longer.length; i++) {
-					Arg only = longer[i];
-					if (only == null) continue;
-
-					Arg clone = args[i] = new Arg();
-					clone.name = only.name;
-					clone.comment = only.comment;
+					//Both halves are copied together, even if one of them is missing
+					if (name != null || argNames.length > i) addArg(i, name);
+					if (comment != null || argComments.length > i) addArgComment(i, comment);
 				}
+			}
 
-				return args;
+			/** One more than the highest local variable index which has (or had) a name */
+			int argCount() {
+				return argNames.length;
 			}
 
 			public String arg(int index) {
-				return args.length > index && args[index] != null ? args[index].name : null;
+				return argNames.length > index ? argNames[index] : null;
 			}
 
 			public Optional<String> argComment(int index) {
-				return args.length > index ? Optional.ofNullable(args[index]).map(arg -> arg.comment) : Optional.empty();
+				return argComments.length > index ? Optional.ofNullable(argComments[index]) : Optional.empty();
 			}
 
 			public <T extends Throwable> void iterateArgs(ThrowingIntObjConsumer<String, T> argConsumer) throws T {
-				for (int i = args.length - 1; i >= 0; i--) {
-					if (args[i] != null && args[i].name != null) argConsumer.accept(i, args[i].name);
+				for (int i = argNames.length - 1; i >= 0; i--) {
+					if (argNames[i] != null) argConsumer.accept(i, argNames[i]);
 				}
 			}
 
 			public void iterateArgComments(ObjIntConsumer<String> argCommentConsumer) {
-				for (int i = 0; i < args.length; i++) {
-					if (args[i] != null && args[i].comment != null) argCommentConsumer.accept(args[i].comment, i);
+				for (int i = 0; i < argComments.length; i++) {
+					if (argComments[i] != null) argCommentConsumer.accept(argComments[i], i);
 				}
 			}
 		}
@@ -162,13 +124,13 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 			String comment;
 
 			public Field(String fromName, String fromDesc) {
-				this.fromName = fromName;
-				this.fromDesc = fromDesc;
+				this.fromName = intern(fromName);
+				this.fromDesc = intern(fromDesc);
 			}
 
 			void setMapping(String name, String desc) {
-				this.toName = name;
-				this.toDesc = desc;
+				this.toName = intern(name);
+				this.toDesc = intern(desc);
 			}
 
 			public String name() {
@@ -187,6 +149,10 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 				return toDesc != null ? toDesc : remapDesc(fromDesc, remapper);
 			}
 
+			public String desc(MappingBlob classNames) {
+				return toDesc != null ? toDesc : classNames.remapDesc(fromDesc);
+			}
+
 			public Optional<String> comment() {
 				return Optional.ofNullable(comment);
 			}
@@ -199,11 +165,11 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		public final String from;
 		String to;
 		String comment;
-		final Map<String, Method> methods = new HashMap<>();
-		final Map<String, Field> fields = new HashMap<>();
+		final MemberTable<Method> methods = new MemberTable<>();
+		final MemberTable<Field> fields = new MemberTable<>();
 
 		public Mapping(String from) {
-			this.from = from;
+			this.from = intern(from);
 		}
 
 		public String to() {
@@ -219,7 +185,7 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		}
 
 		public Iterable<Method> methods() {
-			return methods.values();
+			return methods;
 		}
 
 		public Iterable<Method> methodsWithArgs() {
@@ -227,7 +193,7 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		}
 
 		public boolean hasMethod(Method other) {
-			return methods.containsKey(other.fromName + other.fromDesc);
+			return methods.contains(other.fromName, other.fromDesc);
 		}
 
 		public Method method(Method other) {
@@ -240,15 +206,15 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		}
 
 		Method method(String srcName, String srcDesc) {
-			return methods.computeIfAbsent(srcName + srcDesc, k -> new Method(srcName, srcDesc));
+			return methods.computeIfAbsent(srcName, srcDesc, Method::new);
 		}
 
 		public Iterable<Field> fields() {
-			return fields.values();
+			return fields;
 		}
 
 		public boolean hasField(Field other) {
-			return fields.containsKey(other.fromName + ";;" + other.fromDesc);
+			return fields.contains(other.fromName, other.fromDesc);
 		}
 
 		public Field field(Field other) {
@@ -261,7 +227,7 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		}
 
 		Field field(String srcName, String srcDesc) {
-			return fields.computeIfAbsent(srcName + ";;" + srcDesc, k -> new Field(srcName, srcDesc));
+			return fields.computeIfAbsent(srcName, srcDesc, Field::new);
 		}
 
 		public boolean hasComment() {
@@ -287,11 +253,22 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		}
 
 		Stream<Method> methodStream() {
-			return methods.values().stream();
+			return methods.stream();
 		}
 	}
 
+	/** Names and descriptors repeat a lot both within and between blobs, so it's worth only keeping one copy of each */
+	private static final Interner<String> POOL = Interners.newWeakInterner();
 	private final Map<String, Mapping> mappings = new HashMap<>();
+	/** Descriptors which have already been remapped by {@link #remapDesc(String)}, only kept if {@link #memoiseDescriptors()} is called */
+	private Map<String, String> remappedDescs;
+
+	/** How many classes a blob needs before {@link #invert(InvertionTarget...)} and {@link #rename(MappingBlob)} are worth splitting between threads */
+	static final int PARALLEL_THRESHOLD = 2048;
+
+	static String intern(String value) {
+		return value != null ? POOL.intern(value) : null;
+	}
 
 	public boolean has(String srcName) {
 		return mappings.containsKey(srcName);
@@ -311,9 +288,30 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		return mapping != null ? mapping.to : null;
 	}
 
+	private String mapName(String srcName) {
+		String mapping = tryMapName(srcName);
+		return mapping != null ? mapping : srcName;
+	}
+
+	/** Remember what descriptors {@link #remapDesc(String)} produces, given the same descriptors get remapped many times over */
+	public MappingBlob memoiseDescriptors() {
+		if (remappedDescs == null) remappedDescs = new ConcurrentHashMap<>();
+		return this;
+	}
+
+	/** Remap the class names in the given descriptor using the class names of this blob */
+	public String remapDesc(String desc) {
+		if (remappedDescs == null) return remapDesc(desc, this::mapName);
+
+		String remapped = remappedDescs.get(desc);
+		if (remapped == null) remappedDescs.put(desc, remapped = remapDesc(desc, this::mapName));
+		return remapped;
+	}
+
 	@Override
 	public void acceptClass(String srcName, String dstName) {
 		get(srcName).to = dstName;
+		if (remappedDescs != null) remappedDescs.clear(); //Any of the remembered descriptors could have just changed
 	}
 
 	@Override
@@ -351,6 +349,57 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		get(className).field(fieldName, desc).comment = comment;
 	}
 
+	/**
+	 * Merge the given blob into this one, as if everything it was given had been given to this blob afterwards.
+	 * The given blob shares its mappings with this one afterwards, so shouldn't be used again.
+	 */
+	public MappingBlob absorb(MappingBlob other) {
+		for (Mapping mapping : other.mappings.values()) {
+			Mapping existing = mappings.putIfAbsent(mapping.from, mapping);
+			if (existing == null) continue;
+
+			if (mapping.to != null) existing.to = mapping.to;
+			if (mapping.comment != null) existing.comment = mapping.comment;
+
+			for (Method method : mapping.methods) {
+				Method current = existing.methods.get(method.fromName, method.fromDesc);
+
+				if (current == null) {
+					existing.methods.put(method);
+				} else {
+					absorbMember(current, method);
+
+					for (int i = 0; i < method.argNames.length; i++) {
+						if (method.argNames[i] != null) current.addArg(i, method.argNames[i]);
+					}
+					for (int i = 0; i < method.argComments.length; i++) {
+						if (method.argComments[i] != null) current.addArgComment(i, method.argComments[i]);
+					}
+				}
+			}
+
+			for (Field field : mapping.fields) {
+				Field current = existing.fields.get(field.fromName, field.fromDesc);
+
+				if (current == null) {
+					existing.fields.put(field);
+				} else {
+					absorbMember(current, field);
+				}
+			}
+		}
+
+		if (remappedDescs != null) remappedDescs.clear(); //Class names might well have changed
+		return this;
+	}
+
+	private static void absorbMember(Field existing, Field member) {
+		//Constructors name themselves when made, which shouldn't replace a proper mapping
+		boolean selfNamed = member.fromName.charAt(0) == '<' && member.toDesc == null && member.fromName.equals(member.toName);
+		if (member.toName != null && !(selfNamed && existing.toName != null)) existing.setMapping(member.toName, member.toDesc);
+		if (member.comment != null) existing.comment = member.comment;
+	}
+
 	@Override
 	public Iterator<Mapping> iterator() {
 		return mappings.values().iterator();
@@ -382,7 +431,6 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 
 	public MappingBlob invert(InvertionTarget... targets) {
 		Set<InvertionTarget> aims = EnumSet.noneOf(InvertionTarget.class);
-		MappingBlob invertion = new MappingBlob();
 
 		for (InvertionTarget target : targets) {
 			switch (target) {
@@ -406,114 +454,136 @@ public class MappingBlob implements IMappingAcceptor, Iterable<Mapping> {
 		boolean doMethods = aims.contains(InvertionTarget.METHODS);
 		boolean doArgs = aims.contains(InvertionTarget.METHOD_ARGS);
 
-		UnaryOperator<String> classRemapper = name -> {
-			String mapping = tryMapName(name);
-			return mapping != null ? mapping : name;
-		};
+		return forEachClass((invertion, mapping) -> invert(invertion, mapping, doFields, doMethods, doArgs));
+	}
+
+	/**
+	 * Build a new blob from each class of this one. Small blobs are done in one go, whilst bigger ones are
+	 * split between threads, each building its own blob which are then absorbed together in the same order.
+	 */
+	private MappingBlob forEachClass(BiConsumer<MappingBlob, Mapping> action) {
+		if (mappings.size() < PARALLEL_THRESHOLD || Runtime.getRuntime().availableProcessors() < 2) {
+			MappingBlob out = new MappingBlob();
 
-		for (Mapping mapping : mappings.values()) {
-			if (mapping.to == null) {//If there is no mapped class name there is nothing for it to invert to
-				assert Streams.stream(mapping.fields()).map(Field::name).allMatch(Objects::isNull): mapping.from + " doesn't change name but has fields which do";
-				assert Streams.stream(mapping.methods()).map(Method::name).allMatch(Objects::isNull): mapping.from + " doesn't change name but has methods which do";
-				continue;
+			for (Mapping mapping : mappings.values()) {
+				action.accept(out, mapping);
 			}
 
-			invertion.acceptClass(mapping.to, mapping.from);
-			invertion.acceptClassComment(mapping.to, mapping.comment);
+			return out;
+		} else {
+			return mappings.values().parallelStream().collect(MappingBlob::new, action, MappingBlob::absorb);
+		}
+	}
 
-			if (doFields) {
-				for (Field field : mapping.fields()) {
-					if (field.name() == null) continue;
-					//assert field.desc() != null: mapping.from + '#' + field.fromName + " (" + field.fromDesc + ") changes name without a changed descriptor";
+	private void invert(MappingBlob invertion, Mapping mapping, boolean doFields, boolean doMethods, boolean doArgs) {
+		if (mapping.to == null) {//If there is no mapped class name there is nothing for it to invert to
+			assert Streams.stream(mapping.fields()).map(Field::name).allMatch(Objects::isNull): mapping.from + " doesn't change name but has fields which do";
+			assert Streams.stream(mapping.methods()).map(Method::name).allMatch(Objects::isNull): mapping.from + " doesn't change name but has methods which do";
+			return;
+		}
 
-					String desc = field.desc(classRemapper);
-					invertion.acceptField(mapping.to, field.name(), desc, mapping.from, field.fromName, field.fromDesc);
-					invertion.acceptFieldComment(mapping.to, field.name(), desc, field.comment);
-				}
-			}
+		invertion.acceptClass(mapping.to, mapping.from);
+		invertion.acceptClassComment(mapping.to, mapping.comment);
 
-			if (doMethods) {
-				for (Method method : mapping.methods()) {
-					if (method.name() == null) continue;
-					//assert method.desc() != null: mapping.from + '#' + method.fromName + method.fromDesc + " changes name without a changed descriptor";
+		if (doFields) {
+			for (Field field : mapping.fields()) {
+				if (field.name() == null) continue;
+				//assert field.desc() != null: mapping.from + '#' + field.fromName + " (" + field.fromDesc + ") changes name without a changed descriptor";
 
-					String desc = method.desc(classRemapper);
-					invertion.acceptMethod(mapping.to, method.name(), desc, mapping.from, method.fromName, method.fromDesc);
-					invertion.acceptMethodComment(mapping.to, method.name(), desc, method.comment);
-					if (doArgs) invertion.get(mapping.to).method(method.name(), desc).cloneArgs(method);
-				}
+				String desc = field.desc(this);
+				invertion.acceptField(mapping.to, field.name(), desc, mapping.from, field.fromName, field.fromDesc);
+				invertion.acceptFieldComment(mapping.to, field.name(), desc, field.comment);
 			}
 		}
 
-		return invertion;
+		if (doMethods) {
+			for (Method method : mapping.methods()) {
+				if (method.name() == null) continue;
+				//assert method.desc() != null: mapping.from + '#' + method.fromName + method.fromDesc + " changes name without a changed descriptor";
+
+				String desc = method.desc(this);
+				invertion.acceptMethod(mapping.to, method.name(), desc, mapping.from, method.fromName, method.fromDesc);
+				invertion.acceptMethodComment(mapping.to, method.name(), desc, method.comment);
+				if (doArgs) invertion.get(mapping.to).method(method.name(), desc).cloneArgs(method);
+			}
+		}
 	}
 
 	public MappingBlob rename(MappingBlob blob) {
-		MappingBlob remap = new MappingBlob();
+		return forEachClass((remap, mapping) -> rename(remap, mapping, blob));
+	}
 
-		UnaryOperator<String> classRemapper = name -> {
-			String mapping = blob.tryMapName(name);
-			return mapping != null ? mapping : name;
-		};
+	private static void rename(MappingBlob remap, Mapping mapping, MappingBlob blob) {
+		Mapping bridge = blob.mappings.get(mapping.from);
+		boolean useBridge = bridge != null;
 
-		for (Mapping mapping : mappings.values()) {
-			Mapping bridge = blob.mappings.get(mapping.from);
-			boolean useBridge = bridge != null;
+		String className = useBridge ? bridge.to : mapping.from;
+		remap.acceptClass(className, mapping.to);
+		remap.acceptClassComment(className, mapping.comment);
 
-			String className = useBridge ? bridge.to : mapping.from;
-			remap.acceptClass(className, mapping.to);
-			remap.acceptClassComment(className, mapping.comment);
+		for (Field field : mapping.fields()) {
+			if (useBridge && bridge.hasField(field)) {
+				Field bridged = bridge.field(field);
 
-			for (Field field : mapping.fields()) {
-				if (useBridge && bridge.hasField(field)) {
-					Field bridged = bridge.field(field);
-
-					if (bridged.name() != null) {
-						assert bridged.desc() != null;
-						remap.acceptField(className, bridged.name(), bridged.desc(), mapping.to, field.name(), field.desc());
-						remap.acceptFieldComment(className, bridged.name(), bridged.desc(), field.comment);
-						continue;
-					}
+				if (bridged.name() != null) {
+					assert bridged.desc() != null;
+					remap.acceptField(className, bridged.name(), bridged.desc(), mapping.to, field.name(), field.desc());
+					remap.acceptFieldComment(className, bridged.name(), bridged.desc(), field.comment);
+					continue;
 				}
-
-				String desc = remapDesc(field.fromDesc, classRemapper);
-				remap.acceptField(className, field.fromName, desc, mapping.to, field.name(), field.desc());
-				remap.acceptFieldComment(className, field.fromName, desc, field.comment);
 			}
 
-			for (Method method : mapping.methods()) {
-				if (useBridge && bridge.hasMethod(method)) {
-					Method bridged = bridge.method(method);
-
-					if (bridged.name() != null) {
-						assert bridged.desc() != null;
-						remap.acceptMethod(className, bridged.name(), bridged.desc(), mapping.to, method.name(), method.desc());
-						remap.acceptMethodComment(className, bridged.name(), bridged.desc(), method.comment);
-						remap.get(className).method(bridged.name(), bridged.desc()).cloneArgs(method);
-						continue;
-					}
-				}
+			String desc = blob.remapDesc(field.fromDesc);
+			remap.acceptField(className, field.fromName, desc, mapping.to, field.name(), field.desc());
+			remap.acceptFieldComment(className, field.fromName, desc, field.comment);
+		}
+
+		for (Method method : mapping.methods()) {
+			if (useBridge && bridge.hasMethod(method)) {
+				Method bridged = bridge.method(method);
 
-				String desc = remapDesc(method.fromDesc, classRemapper);
-				remap.acceptMethod(className, method.fromName, desc, mapping.to, method.name(), method.desc());
-				remap.acceptMethodComment(className, method.fromName, desc, method.comment);
-				remap.get(className).method(method.fromName, desc).cloneArgs(method);
+				if (bridged.name() != null) {
+					assert bridged.desc() != null;
+					remap.acceptMethod(className, bridged.name(), bridged.desc(), mapping.to, method.name(), method.desc());
+					remap.acceptMethodComment(className, bridged.name(), bridged.desc(), method.comment);
+					remap.get(className).method(bridged.name(), bridged.desc()).cloneArgs(method);
+					continue;
+				}
 			}
-		}
 
-		return remap;
+			String desc = blob.remapDesc(method.fromDesc);
+			remap.acceptMethod(className, method.fromName, desc, mapping.to, method.name(), method.desc());
+			remap.acceptMethodComment(className, method.fromName, desc, method.comment);
+			remap.get(className).method(method.fromName, desc).cloneArgs(method);
+		}
 	}
 
-	private static final Pattern CLASS_FINDER = Pattern.compile("L([^;]+);");
+	/**
+	 * Remap the class names in the given descriptor, returning the same descriptor if nothing changes.
+	 * This is only meant for descriptors, anything with generics will end up with odd class names being remapped.
+	 */
 	public static String remapDesc(String desc, UnaryOperator<String> classRemapper) {
-		StringBuffer buf = new StringBuffer();
+		StringBuilder out = null;
+		int copied = 0;
+
+		for (int i = 0, end = desc.length(); i < end; i++) {
+			if (desc.charAt(i) != 'L') continue;
+
+			int nameEnd = desc.indexOf(';', i + 1);
+			if (nameEnd < 0) break; //No more complete class names
+			if (nameEnd == i + 1) continue; //Not a class name either
+
+			String name = desc.substring(i + 1, nameEnd);
+			String remapped = classRemapper.apply(name);
+			if (!name.equals(remapped)) {
+				if (out == null) out = new StringBuilder(desc.length() + 32);
+				out.append(desc, copied, i + 1).append(remapped);
+				copied = nameEnd;
+			}
 
-		Matcher matcher = CLASS_FINDER.matcher(desc);
-		while (matcher.find()) {
-			matcher.appendReplacement(buf, Matcher.quoteReplacement('L' + classRemapper.apply(matcher.group(1)) + ';'));
+			i = nameEnd;
 		}
-		matcher.appendTail(buf);
 
-		return buf.toString();
+		return out == null ? desc : out.append(desc, copied, desc.length()).toString();
 	}
-}
\ No newline at end of file
+}
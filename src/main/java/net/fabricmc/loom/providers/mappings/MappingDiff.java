@@ -0,0 +1,204 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping;
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Field;
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Method;
+
+/**
+ * Which classes, fields, methods and parameters have different names between two sets of mappings.
+ *
+ * <p>Both sets are expected to be mapped from the same namespace (typically {@code intermediary}), so everything
+ * is matched up by its name and descriptor in that namespace. Gaining or losing a name counts as a change,
+ * something which isn't in one of the sets is treated the same as it not being named.
+ *
+ * @author Chocohead
+ */
+public final class MappingDiff {
+	public enum Type {
+		CLASS, FIELD, METHOD, PARAMETER;
+	}
+
+	public static final class Change {
+		public final Type type;
+		/** The class which has been renamed, or which the member is in */
+		public final String owner;
+		/** The name and descriptor of the renamed member (or method for parameters), {@code null} for classes */
+		public final String name, desc;
+		/** The local variable index of the renamed parameter, {@code -1} for anything else */
+		public final int index;
+		/** The name before and after, either of which can be {@code null} if it wasn't named */
+		public final String oldName, newName;
+
+		Change(Type type, String owner, String name, String desc, int index, String oldName, String newName) {
+			this.type = type;
+			this.owner = owner;
+			this.name = name;
+			this.desc = desc;
+			this.index = index;
+			this.oldName = oldName;
+			this.newName = newName;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder out = new StringBuilder(owner);
+
+			if (name != null) out.append('#').append(name).append(desc);
+			if (index >= 0) out.append('[').append(index).append(']');
+
+			return out.append(": ").append(oldName).append(" -> ").append(newName).toString();
+		}
+	}
+
+	private final List<Change> changes;
+	private final Set<String> changedClasses;
+
+	private MappingDiff(List<Change> changes) {
+		this.changes = Collections.unmodifiableList(changes);
+		changedClasses = Collections.unmodifiableSet(changes.stream().map(change -> change.owner).collect(Collectors.toSet()));
+	}
+
+	/** Reads the given tiny files (of either version) going from the given namespace to the given namespace, then compares them */
+	public static MappingDiff between(Path oldMappings, Path newMappings, String from, String to) throws IOException {
+		MappingBlob oldBlob = new MappingBlob();
+		TinyReader.readTiny(oldMappings, from, to, oldBlob);
+
+		MappingBlob newBlob = new MappingBlob();
+		TinyReader.readTiny(newMappings, from, to, newBlob);
+
+		return between(oldBlob, newBlob);
+	}
+
+	public static MappingDiff between(MappingBlob oldMappings, MappingBlob newMappings) {
+		List<Change> changes = new ArrayList<>();
+
+		for (Mapping oldMapping : oldMappings) {
+			diff(oldMapping, newMappings.has(oldMapping.from) ? newMappings.get(oldMapping.from) : null, changes);
+		}
+
+		for (Mapping newMapping : newMappings) {
+			if (!oldMappings.has(newMapping.from)) diff(null, newMapping, changes);
+		}
+
+		return new MappingDiff(changes);
+	}
+
+	private static void diff(Mapping oldMapping, Mapping newMapping, List<Change> changes) {
+		String owner = oldMapping != null ? oldMapping.from : newMapping.from;
+
+		String oldName = oldMapping != null ? oldMapping.to() : null;
+		String newName = newMapping != null ? newMapping.to() : null;
+		if (!Objects.equals(oldName, newName)) changes.add(new Change(Type.CLASS, owner, null, null, -1, oldName, newName));
+
+		Set<Field> seenFields = new HashSet<>();
+		if (oldMapping != null) {
+			for (Field field : oldMapping.fields()) {
+				Field other = newMapping != null ? newMapping.fields.get(field.fromName, field.fromDesc) : null;
+				if (other != null) seenFields.add(other);
+
+				diff(Type.FIELD, owner, field, other, changes);
+			}
+		}
+		if (newMapping != null) {
+			for (Field field : newMapping.fields()) {
+				if (!seenFields.contains(field)) diff(Type.FIELD, owner, null, field, changes);
+			}
+		}
+
+		Set<Method> seenMethods = new HashSet<>();
+		if (oldMapping != null) {
+			for (Method method : oldMapping.methods()) {
+				Method other = newMapping != null ? newMapping.methods.get(method.fromName, method.fromDesc) : null;
+				if (other != null) seenMethods.add(other);
+
+				diff(owner, method, other, changes);
+			}
+		}
+		if (newMapping != null) {
+			for (Method method : newMapping.methods()) {
+				if (!seenMethods.contains(method)) diff(owner, null, method, changes);
+			}
+		}
+	}
+
+	private static void diff(Type type, String owner, Field oldMember, Field newMember, List<Change> changes) {
+		String oldName = oldMember != null ? oldMember.name() : null;
+		String newName = newMember != null ? newMember.name() : null;
+
+		if (!Objects.equals(oldName, newName)) {
+			Field member = oldMember != null ? oldMember : newMember;
+			changes.add(new Change(type, owner, member.fromName, member.fromDesc, -1, oldName, newName));
+		}
+	}
+
+	private static void diff(String owner, Method oldMethod, Method newMethod, List<Change> changes) {
+		diff(Type.METHOD, owner, oldMethod, newMethod, changes);
+
+		int args = Math.max(oldMethod != null ? oldMethod.argCount() : 0, newMethod != null ? newMethod.argCount() : 0);
+		for (int index = 0; index < args; index++) {
+			String oldName = oldMethod != null ? oldMethod.arg(index) : null;
+			String newName = newMethod != null ? newMethod.arg(index) : null;
+
+			if (!Objects.equals(oldName, newName)) {
+				Method method = oldMethod != null ? oldMethod : newMethod;
+				changes.add(new Change(Type.PARAMETER, owner, method.fromName, method.fromDesc, index, oldName, newName));
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/** Every change between the two sets of mappings, grouped by class */
+	public List<Change> getChanges() {
+		return changes;
+	}
+
+	public List<Change> getChanges(Type type) {
+		return changes.stream().filter(change -> change.type == type).collect(Collectors.toList());
+	}
+
+	/** How many changes there are of each type */
+	public Map<Type, Integer> countChanges() {
+		Map<Type, Integer> out = new EnumMap<>(Type.class);
+
+		for (Type type : Type.values()) {
+			out.put(type, 0);
+		}
+		for (Change change : changes) {
+			out.merge(change.type, 1, Integer::sum);
+		}
+
+		return out;
+	}
+
+	/** The names (in the namespace both mappings are from) of every class which has been renamed or has members which have been */
+	public Set<String> getChangedClasses() {
+		return changedClasses;
+	}
+
+	/** Whether the given class, or any of its members, have been renamed */
+	public boolean hasChanged(String owner) {
+		return changedClasses.contains(owner);
+	}
+}
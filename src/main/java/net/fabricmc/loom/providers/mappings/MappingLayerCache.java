@@ -0,0 +1,224 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping;
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Field;
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Method;
+import net.fabricmc.mappings.TinyV2Visitor;
+import net.fabricmc.mappings.visitor.ClassVisitor;
+import net.fabricmc.mappings.visitor.FieldVisitor;
+import net.fabricmc.mappings.visitor.LocalVisitor;
+import net.fabricmc.mappings.visitor.MappingsVisitor;
+import net.fabricmc.mappings.visitor.MethodVisitor;
+import net.fabricmc.mappings.visitor.ParameterVisitor;
+
+/**
+ * Saves the names, comments and arguments a {@link MappingBlob} has picked up from a stack of mapping layers,
+ * so the same layers don't have to be read and merged again when only the layers above them change.
+ *
+ * <p>The cache is a tiny v2 file going from {@code intermediary} to {@code named}. Anything without a name is left blank,
+ * and anything without a name, comment or arguments at all is left out, as the Intermediaries will bring those back.
+ *
+ * @author Chocohead
+ */
+public final class MappingLayerCache {
+	private MappingLayerCache() {
+	}
+
+	private static boolean isNamed(Field member) {
+		return member.name() != null && !member.fromName.equals(member.name());
+	}
+
+	private static boolean isWorthWriting(Mapping mapping) {
+		if (mapping.to() != null || mapping.hasComment()) return true;
+
+		for (Method method : mapping.methods()) {
+			if (isNamed(method) || method.hasComment() || method.hasArgs()) return true;
+		}
+		for (Field field : mapping.fields()) {
+			if (isNamed(field) || field.hasComment()) return true;
+		}
+
+		return false;
+	}
+
+	public static void write(MappingBlob mappings, Path to) throws IOException {
+		Files.createDirectories(to.getParent());
+		Path temp = Files.createTempFile(to.getParent(), to.getFileName().toString(), ".tmp");
+
+		try (BufferedWriter out = Files.newBufferedWriter(temp)) {
+			out.write("tiny\t2\t0\tintermediary\tnamed");
+			out.newLine();
+
+			for (Mapping mapping : mappings) {
+				if (!isWorthWriting(mapping)) continue;
+
+				out.write("c\t");
+				out.write(mapping.from);
+				out.write('\t');
+				if (mapping.to() != null) out.write(mapping.to());
+				out.newLine();
+				if (mapping.hasComment()) writeComment(out, "\tc\t", mapping.comment().get());
+
+				for (Method method : mapping.methods()) {
+					if (!isNamed(method) && !method.hasComment() && !method.hasArgs()) continue;
+
+					writeMember(out, "\tm\t", method);
+
+					BitSet args = new BitSet();
+					method.iterateArgs((index, arg) -> args.set(index));
+					method.iterateArgComments((comment, index) -> args.set(index));
+
+					for (int index = args.nextSetBit(0); index >= 0; index = args.nextSetBit(index + 1)) {
+						out.write("\t\tp\t");
+						out.write(Integer.toString(index));
+						out.write("\t\t");
+						if (method.arg(index) != null) out.write(method.arg(index));
+						out.newLine();
+
+						if (method.argComment(index).isPresent()) writeComment(out, "\t\t\tc\t", method.argComment(index).get());
+					}
+				}
+
+				for (Field field : mapping.fields()) {
+					if (!isNamed(field) && !field.hasComment()) continue;
+
+					writeMember(out, "\tf\t", field);
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+
+		Files.move(temp, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void writeMember(BufferedWriter out, String type, Field member) throws IOException {
+		out.write(type);
+		out.write(member.fromDesc);
+		out.write('\t');
+		out.write(member.fromName);
+		out.write('\t');
+		if (isNamed(member)) out.write(member.name());
+		out.newLine();
+
+		if (member.hasComment()) writeComment(out, "\t\tc\t", member.comment().get());
+	}
+
+	private static void writeComment(BufferedWriter out, String prefix, String comment) throws IOException {
+		out.write(prefix);
+		TinyV2toV1.writeEscaped(out, comment);
+		out.newLine();
+	}
+
+	private static String nameOrNull(String[] names) {
+		//Missing names might either be left blank or filled with the name before
+		return !names[1].isEmpty() && !names[1].equals(names[0]) ? names[1] : null;
+	}
+
+	/**
+	 * Read a cache written by {@link #write(MappingBlob, Path)} into the given blob, returns {@code false} if there is no cache to read.
+	 * If reading fails part way through, the given blob will be left untouched.
+	 */
+	public static boolean read(Path from, MappingBlob mappings) throws IOException {
+		if (Files.notExists(from)) return false;
+
+		MappingBlob cache = new MappingBlob();
+		try (Reader in = new InputStreamReader(Files.newInputStream(from), StandardCharsets.UTF_8)) {
+			TinyV2Visitor.read(in, new MappingsVisitor() {
+				@Override
+				public void visitVersion(int major, int minor) {
+					assert major == 2;
+				}
+
+				@Override
+				public void visitProperty(String name) {
+				}
+
+				@Override
+				public void visitProperty(String name, String value) {
+				}
+
+				@Override
+				public void visitNamespaces(String... namespaces) {
+					if (namespaces.length != 2 || !"intermediary".equals(namespaces[0]) || !"named".equals(namespaces[1])) {
+						throw new IllegalArgumentException("Unexpected namespaces in " + from + ": " + String.join(", ", namespaces));
+					}
+				}
+
+				@Override
+				public ClassVisitor visitClass(long offset, String[] names) {
+					String className = names[0];
+					String name = nameOrNull(names);
+					if (name != null) cache.acceptClass(className, name);
+
+					return new ClassVisitor() {
+						@Override
+						public MethodVisitor visitMethod(long offset, String[] names, String desc) {
+							String methodName = names[0];
+							String name = nameOrNull(names);
+							if (name != null) cache.acceptMethod(className, methodName, desc, null, name, null);
+
+							return new MethodVisitor() {
+								@Override
+								public ParameterVisitor visitParameter(long offset, String[] names, int index) {
+									if (!names[1].isEmpty()) cache.acceptMethodArg(className, methodName, desc, index, names[1]);
+
+									return line -> cache.acceptMethodArgComment(className, methodName, desc, index, line);
+								}
+
+								@Override
+								public LocalVisitor visitLocalVariable(long offset, String[] names, int localVariableIndex, int localVariableStartOffset, int localVariableTableIndex) {
+									return null; //Never written
+								}
+
+								@Override
+								public void visitComment(String line) {
+									cache.acceptMethodComment(className, methodName, desc, line);
+								}
+							};
+						}
+
+						@Override
+						public FieldVisitor visitField(long offset, String[] names, String desc) {
+							String fieldName = names[0];
+							String name = nameOrNull(names);
+							if (name != null) cache.acceptField(className, fieldName, desc, null, name, null);
+
+							return line -> cache.acceptFieldComment(className, fieldName, desc, line);
+						}
+
+						@Override
+						public void visitComment(String line) {
+							cache.acceptClassComment(className, line);
+						}
+					};
+				}
+
+				@Override
+				public void finish() {
+				}
+			});
+		}
+
+		mappings.absorb(cache);
+		return true;
+	}
+}
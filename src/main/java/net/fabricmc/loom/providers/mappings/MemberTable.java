@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping.Field;
+
+/**
+ * An open addressed table of members keyed by their names and descriptors, without needing to make a key for each one.
+ *
+ * @param <T> The type of member being stored
+ */
+final class MemberTable<T extends Field> extends AbstractCollection<T> {
+	private static final Field[] EMPTY = new Field[0];
+	private Field[] table = EMPTY;
+	private int size;
+
+	private static int hash(String name, String desc) {
+		int hash = Objects.hashCode(name) * 31 + Objects.hashCode(desc);
+		return hash ^ hash >>> 16;
+	}
+
+	private int find(String name, String desc) {
+		int mask = table.length - 1;
+
+		for (int slot = hash(name, desc) & mask;; slot = slot + 1 & mask) {
+			Field member = table[slot];
+			if (member == null || Objects.equals(member.fromName, name) && Objects.equals(member.fromDesc, desc)) return slot;
+		}
+	}
+
+	public boolean contains(String name, String desc) {
+		return size > 0 && table[find(name, desc)] != null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(String name, String desc) {
+		return size > 0 ? (T) table[find(name, desc)] : null;
+	}
+
+	@SuppressWarnings("unchecked")
+	public T computeIfAbsent(String name, String desc, BiFunction<String, String, T> factory) {
+		if (table.length == 0) {
+			table = new Field[4];
+		}
+
+		int slot = find(name, desc);
+		if (table[slot] == null) {
+			T member = factory.apply(name, desc);
+			table[slot] = member;
+
+			if (++size > table.length * 3 / 4) grow();
+			return member;
+		} else {
+			return (T) table[slot];
+		}
+	}
+
+	/** Adds the given member, replacing whichever member previously had the same name and descriptor */
+	public void put(T member) {
+		if (table.length == 0) {
+			table = new Field[4];
+		}
+
+		int slot = find(member.fromName, member.fromDesc);
+		if (table[slot] == null) {
+			table[slot] = member;
+			if (++size > table.length * 3 / 4) grow();
+		} else {
+			table[slot] = member;
+		}
+	}
+
+	private void grow() {
+		Field[] old = table;
+		table = new Field[old.length << 1];
+
+		for (Field member : old) {
+			if (member != null) table[find(member.fromName, member.fromDesc)] = member;
+		}
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public Iterator<T> iterator() {
+		return new Iterator<T>() {
+			private final Field[] table = MemberTable.this.table;
+			private int next = advance(0);
+
+			private int advance(int from) {
+				while (from < table.length && table[from] == null) from++;
+				return from;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return next < table.length;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (!hasNext()) throw new NoSuchElementException();
+
+				T member = (T) table[next];
+				next = advance(next + 1);
+				return member;
+			}
+		};
+	}
+}
@@ -7,65 +7,59 @@
  */
 package net.fabricmc.loom.providers.mappings;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 
 public class TinyDuplicator {
 	public static void duplicateV1Column(Path from, Path to, String copyColumn, String newColumn) throws IOException {
-		try (BufferedReader reader = TinyReader.getMappingReader(from); BufferedWriter writer = Files.newBufferedWriter(to)) {
+		TinyTokenizer reader = TinyTokenizer.read(from); //Not mapped as callers tend to replace the input with the output straight after
+
+		try (OutputStream writer = new BufferedOutputStream(Files.newOutputStream(to))) {
 			readTiny(reader, writer, copyColumn, newColumn);
 		}
 	}
 
-	private static void readTiny(BufferedReader reader, BufferedWriter writer, String copyColumn, String newColumn) throws IOException {
+	private static void readTiny(TinyTokenizer reader, OutputStream writer, String copyColumn, String newColumn) throws IOException {
 		List<String> headers = TinyReader.readHeaders(reader);
 
 		int from = headers.indexOf(copyColumn) + 1;
 		if (from <= 0) throw new IllegalArgumentException("Unable to find column named " + copyColumn);
 		if (headers.contains(newColumn)) throw new IllegalArgumentException("Column with name " + newColumn + " already exists");
 
-		writer.write("v1\t");
-		for (String header : headers) {
-			writer.write(header);
-			writer.write('\t');
+		StringBuilder header = new StringBuilder("v1\t");
+		for (String column : headers) {
+			header.append(column).append('\t');
 		}
-		writer.write(newColumn);
-		writer.newLine();
-
-		for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-			if (line.isEmpty() || line.startsWith("#")) continue;
+		header.append(newColumn).append('\n');
+		writer.write(header.toString().getBytes(StandardCharsets.UTF_8));
 
-			String[] parts = line.split("\t");
-			if (parts.length < 2) throw new IOException("Invalid tiny line (missing columns): " + line);
-
-			writer.write(line);
-			writer.write('\t');
+		while (reader.nextLine()) {
+			if (reader.isBlank() || reader.isComment()) continue;
+			if (reader.columns() < 2) throw new IOException("Invalid tiny line (missing columns): " + reader.line());
 
-			switch (parts[0]) {
-			case "CLASS":
-				assert parts.length >= 2: "Invalid tiny line (missing columns): " + line;
+			int column;
+			if (reader.columnEquals(0, "CLASS")) {
+				column = from;
+			} else if (reader.columnEquals(0, "METHOD") || reader.columnEquals(0, "FIELD")) {
+				if (reader.columns() < 4) throw new IOException("Invalid tiny line (missing columns): " + reader.line());
+				if (reader.isEmpty(1)) throw new IOException("Invalid tiny line (empty src class): " + reader.line());
+				if (reader.isEmpty(2)) throw new IOException("Invalid tiny line (empty src method desc): " + reader.line());
 
-				writer.write(parts[from]);
-				break;
-
-			case "METHOD":
-			case "FIELD":
-				if (parts.length < 4) throw new IOException("Invalid tiny line (missing columns): " + line);
-				if (parts[1].isEmpty()) throw new IOException("Invalid tiny line (empty src class): " + line);
-				if (parts[2].isEmpty()) throw new IOException("Invalid tiny line (empty src method desc): " + line);
-
-				writer.write(parts[2 + from]);
-				break;
-
-			default:
-				throw new IOException("Unexpected tiny line (unknown type): " + line);
+				column = 2 + from;
+			} else {
+				throw new IOException("Unexpected tiny line (unknown type): " + reader.line());
 			}
+			if (column >= reader.columns()) throw new IOException("Invalid tiny line (missing columns): " + reader.line());
 
-			writer.newLine();
+			reader.writeLine(writer);
+			writer.write('\t');
+			reader.writeColumn(column, writer);
+			writer.write('\n');
 		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.fabricmc.mappings.ClassEntry;
+import net.fabricmc.mappings.EntryTriple;
+import net.fabricmc.mappings.FieldEntry;
+import net.fabricmc.mappings.Mappings;
+import net.fabricmc.mappings.MethodEntry;
+
+/**
+ * A binary snapshot of a tiny file's {@link Mappings}, which can be memory-mapped back in without reparsing.
+ *
+ * <p>The layout is a fixed header, a table of string offsets, the class, field and method tables (each
+ * name being an index into the string table, or {@code -1} for {@code null}), then the UTF-8 string data.
+ * Strings are only decoded as they are asked for, so opening an index is effectively free.
+ *
+ * @author Chocohead
+ */
+public final class TinyIndex {
+	private static final int MAGIC = 0x54494458; //TIDX
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 4 * 4 + 8 * 2 + 4 * 3;
+
+	private TinyIndex() {
+	}
+
+	/** The index file which sits next to the given tiny file */
+	public static Path getIndexFile(Path tinyFile) {
+		String name = tinyFile.getFileName().toString();
+		if (name.endsWith(".tiny")) name = name.substring(0, name.length() - 5);
+		return tinyFile.resolveSibling(name + ".tidx");
+	}
+
+	public static void write(Mappings mappings, Path source, Path index) throws IOException {
+		String[] namespaces = mappings.getNamespaces().toArray(new String[0]);
+		Map<String, Integer> pool = new HashMap<>();
+
+		Collection<ClassEntry> classes = mappings.getClassEntries();
+		int[] classTable = new int[classes.size() * namespaces.length];
+		int slot = 0;
+		for (ClassEntry entry : classes) {
+			for (String namespace : namespaces) {
+				classTable[slot++] = intern(pool, entry.get(namespace));
+			}
+		}
+
+		Collection<FieldEntry> fields = mappings.getFieldEntries();
+		int[] fieldTable = new int[fields.size() * namespaces.length * 3];
+		slot = 0;
+		for (FieldEntry entry : fields) {
+			for (String namespace : namespaces) {
+				slot = intern(pool, entry.get(namespace), fieldTable, slot);
+			}
+		}
+
+		Collection<MethodEntry> methods = mappings.getMethodEntries();
+		int[] methodTable = new int[methods.size() * namespaces.length * 3];
+		slot = 0;
+		for (MethodEntry entry : methods) {
+			for (String namespace : namespaces) {
+				slot = intern(pool, entry.get(namespace), methodTable, slot);
+			}
+		}
+
+		int[] namespaceTable = new int[namespaces.length];
+		for (int i = 0; i < namespaces.length; i++) {
+			namespaceTable[i] = intern(pool, namespaces[i]);
+		}
+
+		byte[][] strings = new byte[pool.size()][];
+		for (Map.Entry<String, Integer> entry : pool.entrySet()) {
+			strings[entry.getValue()] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+		}
+
+		BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+		Path temp = Files.createTempFile(index.getParent(), index.getFileName().toString(), ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(namespaces.length);
+			out.writeInt(strings.length);
+			out.writeLong(sourceAttributes.lastModifiedTime().toMillis());
+			out.writeLong(sourceAttributes.size());
+			out.writeInt(classes.size());
+			out.writeInt(fields.size());
+			out.writeInt(methods.size());
+
+			writeTable(out, namespaceTable);
+			int offset = 0;
+			for (byte[] string : strings) {
+				out.writeInt(offset);
+				offset += string.length;
+			}
+			out.writeInt(offset);
+			writeTable(out, classTable);
+			writeTable(out, fieldTable);
+			writeTable(out, methodTable);
+
+			for (byte[] string : strings) {
+				out.write(string);
+			}
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+
+		Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static int intern(Map<String, Integer> pool, String value) {
+		if (value == null) return -1;
+
+		Integer id = pool.get(value);
+		if (id == null) pool.put(value, id = pool.size());
+		return id;
+	}
+
+	private static int intern(Map<String, Integer> pool, EntryTriple value, int[] table, int slot) {
+		if (value != null) {
+			table[slot++] = intern(pool, value.getOwner());
+			table[slot++] = intern(pool, value.getName());
+			table[slot++] = intern(pool, value.getDesc());
+		} else {
+			table[slot++] = -1;
+			table[slot++] = -1;
+			table[slot++] = -1;
+		}
+
+		return slot;
+	}
+
+	private static void writeTable(DataOutputStream out, int[] table) throws IOException {
+		for (int value : table) {
+			out.writeInt(value);
+		}
+	}
+
+	/**
+	 * Map the given index back in, returns {@code null} if the index is missing, malformed,
+	 * or was not written from the current version of the given source file.
+	 */
+	public static Mappings read(Path index, Path source) throws IOException {
+		if (Files.notExists(index)) return null;
+
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+			if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) return null;
+
+			//Check the header before mapping anything, as a stale index left mapped can't be replaced on Windows
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining()) {
+				if (channel.read(header, header.position()) < 0) return null;
+			}
+
+			if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return null;
+			BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+			if (header.getLong(16) != sourceAttributes.lastModifiedTime().toMillis() || header.getLong(24) != sourceAttributes.size()) return null;
+
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		try {
+			return new IndexedMappings(buffer);
+		} catch (RuntimeException e) {
+			return null; //Something's gone wrong writing (or since) the index, just leave it to be rebuilt
+		}
+	}
+
+	private static final class IndexedMappings implements Mappings {
+		private final ByteBuffer buffer;
+		private final String[] namespaces;
+		private final String[] strings;
+		private final int stringOffsets, classes, fields, methods, data;
+		private final int classCount, fieldCount, methodCount;
+
+		IndexedMappings(ByteBuffer buffer) {
+			this.buffer = buffer;
+
+			int namespaceCount = buffer.getInt(8);
+			strings = new String[buffer.getInt(12)];
+			classCount = buffer.getInt(32);
+			fieldCount = buffer.getInt(36);
+			methodCount = buffer.getInt(40);
+
+			int namespaceTable = HEADER_SIZE;
+			stringOffsets = namespaceTable + namespaceCount * 4;
+			classes = stringOffsets + (strings.length + 1) * 4;
+			fields = classes + classCount * namespaceCount * 4;
+			methods = fields + fieldCount * namespaceCount * 3 * 4;
+			data = methods + methodCount * namespaceCount * 3 * 4;
+			if (data + buffer.getInt(classes - 4) != buffer.limit()) throw new IllegalStateException("Index is truncated, expected " + (data + buffer.getInt(classes - 4)) + " bytes but found " + buffer.limit());
+
+			namespaces = new String[namespaceCount];
+			for (int i = 0; i < namespaceCount; i++) {
+				namespaces[i] = string(buffer.getInt(namespaceTable + i * 4));
+			}
+		}
+
+		private String string(int id) {
+			if (id < 0) return null;
+
+			String out = strings[id];
+			if (out == null) {//Racing here is harmless, both threads would decode the same thing
+				int start = buffer.getInt(stringOffsets + id * 4);
+				int end = buffer.getInt(stringOffsets + id * 4 + 4);
+
+				ByteBuffer slice = buffer.duplicate();
+				slice.position(data + start);
+				slice.limit(data + end);
+				strings[id] = out = StandardCharsets.UTF_8.decode(slice).toString();
+			}
+
+			return out;
+		}
+
+		private int namespace(String namespace) {
+			for (int i = 0; i < namespaces.length; i++) {
+				if (namespaces[i].equals(namespace)) return i;
+			}
+
+			return -1;
+		}
+
+		EntryTriple triple(int table, int entry, String namespace) {
+			int column = namespace(namespace);
+			if (column < 0) return null;
+
+			int position = table + (entry * namespaces.length + column) * 3 * 4;
+			int owner = buffer.getInt(position);
+			if (owner < 0) return null;
+
+			return new EntryTriple(string(owner), string(buffer.getInt(position + 4)), string(buffer.getInt(position + 8)));
+		}
+
+		@Override
+		public Collection<String> getNamespaces() {
+			return Collections.unmodifiableList(Arrays.asList(namespaces));
+		}
+
+		@Override
+		public Collection<ClassEntry> getClassEntries() {
+			return new AbstractList<ClassEntry>() {
+				@Override
+				public ClassEntry get(int index) {
+					if (index < 0 || index >= classCount) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + classCount);
+
+					return namespace -> {
+						int column = namespace(namespace);
+						return column >= 0 ? string(buffer.getInt(classes + (index * namespaces.length + column) * 4)) : null;
+					};
+				}
+
+				@Override
+				public int size() {
+					return classCount;
+				}
+			};
+		}
+
+		@Override
+		public Collection<FieldEntry> getFieldEntries() {
+			return new AbstractList<FieldEntry>() {
+				@Override
+				public FieldEntry get(int index) {
+					if (index < 0 || index >= fieldCount) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + fieldCount);
+
+					return namespace -> triple(fields, index, namespace);
+				}
+
+				@Override
+				public int size() {
+					return fieldCount;
+				}
+			};
+		}
+
+		@Override
+		public Collection<MethodEntry> getMethodEntries() {
+			return new AbstractList<MethodEntry>() {
+				@Override
+				public MethodEntry get(int index) {
+					if (index < 0 || index >= methodCount) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + methodCount);
+
+					return namespace -> triple(methods, index, namespace);
+				}
+
+				@Override
+				public int size() {
+					return methodCount;
+				}
+			};
+		}
+	}
+}
@@ -78,27 +78,49 @@ public class TinyReader {
 	}
 
 	public static List<String> readHeaders(Path file) throws IOException {
-		try (BufferedReader reader = getMappingReader(file)) {
-			return readHeaders(reader);
+		try (BufferedReader reader = getMappingReader(file)) {//Only need the first line, not worth reading (or inflating) everything to get it
+			String header = reader.readLine();
+			return header != null ? readHeaders(header.split("\t")) : Collections.emptyList();
 		}
 	}
 
-	static List<String> readHeaders(BufferedReader reader) throws IOException {
-		String header = reader.readLine();
-
-		if (header == null) {
-			return Collections.emptyList(); //No headers in an empty file
-		} else if (header.startsWith("v1\t")) {
-			return Arrays.asList(header.substring(3).split("\t"));
-		} else if (header.startsWith("tiny\t2\t")) {
-			String[] bits;
-			return Arrays.asList(bits = header.split("\t")).subList(3, bits.length);
+	private static List<String> readHeaders(String[] header) throws IOException {
+		if (header.length > 1 && "v1".equals(header[0])) {
+			return Arrays.asList(header).subList(1, header.length);
+		} else if (header.length > 3 && "tiny".equals(header[0]) && "2".equals(header[1])) {
+			return Arrays.asList(header).subList(3, header.length);
 		} else {
-			throw new IOException("Unlikely tiny file given " + header);
+			throw new IOException("Unlikely tiny file given " + String.join("\t", header));
 		}
 	}
 
+	/** Read the headers from the first line of the given tokenizer, leaving the tokenizer on the header line */
+	static List<String> readHeaders(TinyTokenizer tokenizer) throws IOException {
+		if (!tokenizer.nextLine()) return Collections.emptyList(); //No headers in an empty file
+
+		String[] header = new String[tokenizer.columns()];
+		for (int i = 0; i < header.length; i++) {
+			header[i] = tokenizer.column(i);
+		}
+
+		return readHeaders(header);
+	}
+
 	public static void readTiny(Path file, String from, String to, IMappingAcceptor mappingAcceptor) throws IOException {
+		//Read onto the heap rather than mapped, as the mappings read here are often replaced afterwards
+		TinyTokenizer tokenizer = TinyTokenizer.read(file);
+		List<String> headers = readHeaders(tokenizer);
+
+		if (tokenizer.columns() > 0 && tokenizer.columnEquals(0, "v1")) {
+			int fromColumn = headers.indexOf(from);
+			if (fromColumn < 0) throw new IOException("Could not find mapping '" + from + "' in " + file);
+			int toColumn = headers.indexOf(to);
+			if (toColumn < 0) throw new IOException("Could not find mapping '" + to + "' in " + file);
+
+			readV1Tiny(tokenizer, fromColumn, toColumn, mappingAcceptor);
+			return;
+		}
+
 		try (BufferedReader reader = getMappingReader(file)) {
 			Map<String, String> reverser = new HashMap<>();
 
@@ -119,6 +141,44 @@ public class TinyReader {
 		}
 	}
 
+	private static void readV1Tiny(TinyTokenizer tokenizer, int from, int to, IMappingAcceptor mappingAcceptor) throws IOException {
+		//Members are given in terms of the first column, so the classes need to be known first to move them to the right one
+		Map<String, String> classes = new HashMap<>();
+
+		while (tokenizer.nextLine()) {
+			if (tokenizer.isBlank() || tokenizer.isComment() || !tokenizer.columnEquals(0, "CLASS")) continue;
+			if (tokenizer.columns() < 2 + Math.max(from, to)) throw new IOException("Invalid tiny line (missing columns): " + tokenizer.line());
+
+			String name = tokenizer.column(1 + from);
+			if (from != 0) classes.put(tokenizer.column(1), name);
+			mappingAcceptor.acceptClass(name, tokenizer.column(1 + to));
+		}
+
+		tokenizer.rewind();
+		tokenizer.nextLine(); //Skip the header
+
+		while (tokenizer.nextLine()) {
+			if (tokenizer.isBlank() || tokenizer.isComment()) continue;
+
+			boolean method = tokenizer.columnEquals(0, "METHOD");
+			if (!method && !tokenizer.columnEquals(0, "FIELD")) continue;
+			if (tokenizer.columns() < 4 + Math.max(from, to)) throw new IOException("Invalid tiny line (missing columns): " + tokenizer.line());
+
+			String owner = tokenizer.column(1);
+			String desc = tokenizer.column(2);
+			if (from != 0) {
+				owner = classes.getOrDefault(owner, owner);
+				desc = MappingBlob.remapDesc(desc, name -> classes.getOrDefault(name, name));
+			}
+
+			if (method) {
+				mappingAcceptor.acceptMethod(owner, tokenizer.column(3 + from), desc, null, tokenizer.column(3 + to), null);
+			} else {
+				mappingAcceptor.acceptField(owner, tokenizer.column(3 + from), desc, null, tokenizer.column(3 + to), null);
+			}
+		}
+	}
+
 	public static Map<ClassEntry, Pair<Set<MethodEntry>, Set<FieldEntry>>> readTiny(Path file, String commonNamespace) throws IOException {
 		try (InputStream in = getMappingStream(file)) {
 			Mappings mappings = MappingsProvider.readTinyMappings(in, false);
@@ -155,13 +215,21 @@ public class TinyReader {
 	}
 
 	public static void fillFromColumn(Path file, String column, MappingBlob blob) throws IOException {
+		TinyTokenizer tokenizer = TinyTokenizer.open(file);
+		List<String> headers = readHeaders(tokenizer);
+
+		if (!headers.contains(column)) {
+			throw new IllegalArgumentException("Namespace " + column + " not found in " + file);
+		}
+
+		if (tokenizer.columns() > 0 && tokenizer.columnEquals(0, "v1")) {
+			fillFromV1Column(tokenizer, headers.indexOf(column), blob);
+			return;
+		}
+
 		try (InputStream in = getMappingStream(file)) {
 			Mappings mappings = MappingsProvider.readTinyMappings(in, false);
 
-			if (!mappings.getNamespaces().contains(column)) {
-				throw new IllegalArgumentException("Namespace " + column + " not found in " + file);
-			}
-
 			for (ClassEntry entry : mappings.getClassEntries()) {
 				blob.acceptClass(entry.get(column), null);
 			}
@@ -176,7 +244,46 @@ public class TinyReader {
 		}
 	}
 
-	public static void readComments(Path file, String from, UnaryOperator<String> classRemapper, IMappingAcceptor mappingAcceptor) throws IOException {
+	private static void fillFromV1Column(TinyTokenizer tokenizer, int column, MappingBlob blob) throws IOException {
+		//Members are given in terms of the first column, so the classes need to be known first to move them to the right one
+		Map<String, String> classes = new HashMap<>();
+
+		while (tokenizer.nextLine()) {
+			if (tokenizer.isBlank() || tokenizer.isComment() || !tokenizer.columnEquals(0, "CLASS")) continue;
+			if (tokenizer.columns() < 2 + column) throw new IOException("Invalid tiny line (missing columns): " + tokenizer.line());
+
+			String name = tokenizer.column(1 + column);
+			if (column != 0) classes.put(tokenizer.column(1), name);
+			blob.acceptClass(name, null);
+		}
+
+		tokenizer.rewind();
+		tokenizer.nextLine(); //Skip the header
+
+		while (tokenizer.nextLine()) {
+			if (tokenizer.isBlank() || tokenizer.isComment()) continue;
+
+			boolean method = tokenizer.columnEquals(0, "METHOD");
+			if (!method && !tokenizer.columnEquals(0, "FIELD")) continue;
+			if (tokenizer.columns() < 4 + column) throw new IOException("Invalid tiny line (missing columns): " + tokenizer.line());
+
+			String owner = tokenizer.column(1);
+			String desc = tokenizer.column(2);
+			if (column != 0) {
+				owner = classes.getOrDefault(owner, owner);
+				desc = MappingBlob.remapDesc(desc, name -> classes.getOrDefault(name, name));
+			}
+			String name = tokenizer.column(3 + column);
+
+			if (method) {
+				blob.acceptMethod(owner, name, desc, null, null, null);
+			} else {
+				blob.acceptField(owner, name, desc, null, null, null);
+			}
+		}
+	}
+
+	public static void readComments(Path file, String from, UnaryOperator<String> descRemapper, IMappingAcceptor mappingAcceptor) throws IOException {
 		try (Reader in = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
 			TinyV2Visitor.read(in, new MappingsVisitor() {
 				private int index;
@@ -209,7 +316,7 @@ public class TinyReader {
 						public MethodVisitor visitMethod(long offset, String[] names, String descriptor) {
 							return new MethodVisitor() {
 								private final String name = names[index];
-								private final String desc = index == 0 ? descriptor : MappingBlob.remapDesc(descriptor, classRemapper);
+								private final String desc = index == 0 ? descriptor : descRemapper.apply(descriptor);
 
 								@Override
 								public ParameterVisitor visitParameter(long offset, String[] names, int localVariableIndex) {
@@ -238,7 +345,7 @@ public class TinyReader {
 						public FieldVisitor visitField(long offset, String[] names, String descriptor) {
 							return new FieldVisitor() {
 								private final String name = names[index];
-								private final String desc = index == 0 ? descriptor : MappingBlob.remapDesc(descriptor, classRemapper);
+								private final String desc = index == 0 ? descriptor : descRemapper.apply(descriptor);
 
 								@Override
 								public void visitComment(String line) {
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.providers.mappings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.MoreFiles;
+
+/**
+ * Splits a tiny file into lines and tab separated columns without making a {@link String} for each one.
+ * The file is memory-mapped where possible, with each line's columns kept as offsets into it until something actually needs the text.
+ *
+ * @author Chocohead
+ */
+final class TinyTokenizer {
+	private final ByteBuffer buffer;
+	private int position, lineStart, lineEnd;
+	private int[] columnStarts = new int[8], columnEnds = new int[8];
+	private int columns;
+	private byte[] scratch = new byte[256];
+
+	private TinyTokenizer(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	public static TinyTokenizer open(Path file) throws IOException {
+		//Can't map a compressed file, and only files on the default file system can be mapped (zip file systems throw if asked)
+		if ("gz".equalsIgnoreCase(MoreFiles.getFileExtension(file)) || file.getFileSystem() != FileSystems.getDefault()) return read(file);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) throw new IOException("Tiny file is too big to map: " + file);
+			return new TinyTokenizer(channel.map(MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/** Reads the whole file onto the heap rather than mapping it, for when it needs to be replaced afterwards (which Windows refuses whilst it is mapped) */
+	public static TinyTokenizer read(Path file) throws IOException {
+		if ("gz".equalsIgnoreCase(MoreFiles.getFileExtension(file))) {
+			try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+				return new TinyTokenizer(ByteBuffer.wrap(ByteStreams.toByteArray(in)));
+			}
+		}
+
+		return new TinyTokenizer(ByteBuffer.wrap(Files.readAllBytes(file)));
+	}
+
+	/** Go back to the start of the file, the next call to {@link #nextLine()} will give the first line again */
+	public void rewind() {
+		position = lineStart = lineEnd = 0;
+		columns = 0;
+	}
+
+	/** Move on to the next line, returning {@code false} if there are no more lines left to read */
+	public boolean nextLine() {
+		int limit = buffer.limit();
+		if (position >= limit) {
+			columns = 0;
+			return false;
+		}
+
+		lineStart = position;
+		columns = 0;
+
+		int end = position;
+		int columnStart = position;
+		for (; end < limit; end++) {
+			byte b = buffer.get(end);
+
+			if (b == '\n') {
+				break;
+			} else if (b == '\t') {
+				addColumn(columnStart, end);
+				columnStart = end + 1;
+			}
+		}
+
+		position = end + 1;
+		if (end > columnStart && buffer.get(end - 1) == '\r') end--;
+		addColumn(columnStart, end);
+		lineEnd = end;
+
+		return true;
+	}
+
+	private void addColumn(int start, int end) {
+		if (columns == columnStarts.length) {
+			columnStarts = Arrays.copyOf(columnStarts, columns * 2);
+			columnEnds = Arrays.copyOf(columnEnds, columns * 2);
+		}
+
+		columnStarts[columns] = start;
+		columnEnds[columns++] = end;
+	}
+
+	/** Whether the current line has nothing at all on it */
+	public boolean isBlank() {
+		return lineStart == lineEnd;
+	}
+
+	/** Whether the current line is a comment */
+	public boolean isComment() {
+		return lineStart < lineEnd && buffer.get(lineStart) == '#';
+	}
+
+	/** The number of columns in the current line, a blank line still has one (empty) column */
+	public int columns() {
+		return columns;
+	}
+
+	public boolean isEmpty(int column) {
+		return columnStarts[column] == columnEnds[column];
+	}
+
+	/** Whether the given column is exactly the given text, which is expected to only be ASCII */
+	public boolean columnEquals(int column, String text) {
+		int start = columnStarts[column];
+		if (columnEnds[column] - start != text.length()) return false;
+
+		for (int i = 0, end = text.length(); i < end; i++) {
+			if (buffer.get(start + i) != text.charAt(i)) return false;
+		}
+
+		return true;
+	}
+
+	public String column(int column) {
+		return decode(columnStarts[column], columnEnds[column]);
+	}
+
+	/** The whole of the current line, mostly useful for error messages */
+	public String line() {
+		return decode(lineStart, lineEnd);
+	}
+
+	private String decode(int start, int end) {
+		if (buffer.hasArray()) return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+
+		return new String(copy(start, end), 0, end - start, StandardCharsets.UTF_8);
+	}
+
+	private byte[] copy(int start, int end) {
+		int length = end - start;
+		if (scratch.length < length) scratch = new byte[Math.max(length, scratch.length * 2)];
+
+		for (int i = 0; i < length; i++) {
+			scratch[i] = buffer.get(start + i);
+		}
+
+		return scratch;
+	}
+
+	public void writeLine(OutputStream out) throws IOException {
+		write(out, lineStart, lineEnd);
+	}
+
+	public void writeColumn(int column, OutputStream out) throws IOException {
+		write(out, columnStarts[column], columnEnds[column]);
+	}
+
+	private void write(OutputStream out, int start, int end) throws IOException {
+		if (buffer.hasArray()) {
+			out.write(buffer.array(), buffer.arrayOffset() + start, end - start);
+		} else {
+			out.write(copy(start, end), 0, end - start);
+		}
+	}
+}
@@ -7,9 +7,9 @@
  */
 package net.fabricmc.loom.providers.mappings;
 
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UncheckedIOException;
@@ -25,24 +25,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.function.BiFunction;
-import java.util.function.Function;
 import java.util.function.UnaryOperator;
-import java.util.stream.Collectors;
 
 import net.fabricmc.loom.providers.mappings.MappingBlob.Mapping;
 import net.fabricmc.mappings.EntryTriple;
-import net.fabricmc.mappings.ExtendedMappings;
-import net.fabricmc.mappings.MappingsProvider;
 import net.fabricmc.mappings.TinyV2Visitor;
-import net.fabricmc.mappings.model.CommentEntry;
 import net.fabricmc.mappings.model.CommentEntry.Class;
 import net.fabricmc.mappings.model.CommentEntry.Field;
 import net.fabricmc.mappings.model.CommentEntry.LocalVariableComment;
 import net.fabricmc.mappings.model.CommentEntry.Method;
 import net.fabricmc.mappings.model.CommentEntry.Parameter;
-import net.fabricmc.mappings.model.Comments;
-import net.fabricmc.mappings.model.LocalVariable;
 import net.fabricmc.mappings.model.MethodParameter;
 import net.fabricmc.mappings.visitor.ClassVisitor;
 import net.fabricmc.mappings.visitor.FieldVisitor;
@@ -56,14 +48,28 @@ public class TinyV2toV1 {
 		convert(input, output, null, null);
 	}
 
+	/**
+	 * Converts the given tiny V2 mappings to tiny V1, optionally writing the parameter names and comments out to their own files.
+	 *
+	 * <p>The mappings are streamed through, with comments only held a class at a time. The exception is when the primary namespace
+	 * isn't named and comments are wanted: then the named name of every class has to be read in first, and all of them are kept
+	 * for the whole conversion, so memory use grows with the number of classes.
+	 */
 	public static void convert(Path input, Path output, Path params, Path comments) {
+		Map<String, String> commentClasses = comments != null ? readCommentClassNames(input) : Collections.emptyMap();
+
 		try (Reader in = new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8);
 				BufferedWriter out = Files.newBufferedWriter(output);
-				BufferedWriter paramOut = params != null ? Files.newBufferedWriter(params) : null) {
+				BufferedWriter paramOut = params != null ? Files.newBufferedWriter(params) : null;
+				BufferedWriter commentOut = comments != null ? Files.newBufferedWriter(comments) : null) {
 			TinyV2Visitor.read(in, new MappingsVisitor() {
 				private final boolean writeParams = paramOut != null;
+				private final boolean writeComments = commentOut != null;
+				private final UnaryOperator<String> descRemapper = commentClasses.isEmpty() ? UnaryOperator.identity() :
+					desc -> MappingBlob.remapDesc(desc, name -> commentClasses.getOrDefault(name, name));
 				private List<String> namespaces;
 				private Runnable finaliser;
+				private StreamedClassComments classComments;
 
 				@Override
 				public void visitVersion(int major, int minor) {
@@ -81,7 +87,10 @@ public class TinyV2toV1 {
 
 				@Override
 				public void visitNamespaces(String... namespaces) {
-					if (writeParams) this.namespaces = Arrays.asList(namespaces);
+					if (writeComments && namespaces.length == 0) {//There should actually be some mappings to convert
+						throw new IllegalArgumentException("Provided empty mappings at " + input);
+					}
+					this.namespaces = Arrays.asList(namespaces);
 
 					try {
 						out.write("v1");
@@ -90,6 +99,11 @@ public class TinyV2toV1 {
 							out.write(namespace);
 						}
 						out.newLine();
+
+						if (writeComments) {
+							commentOut.write("tiny\t2\t0\tnamed");
+							commentOut.newLine();
+						}
 					} catch (IOException e) {
 						throw new UncheckedIOException("Error writing tiny header", e);
 					}
@@ -109,36 +123,65 @@ public class TinyV2toV1 {
 					}
 
 					if (finaliser != null) finaliser.run(); //Ensure last parameters have definitely been written
+					int named = namespaces.indexOf("named");
+					if (writeComments) {
+						flushComments();
+						classComments = new StreamedClassComments(names[named]);
+					}
+
 					return new ClassVisitor() {
 						class ParamHolder implements MethodVisitor {
-							private final int named = namespaces.indexOf("named"), official = namespaces.indexOf("intermediary");
+							private final int official = namespaces.indexOf("intermediary");
 							private final String className = names[named];
 							private final String method, desc;
-							private String[] args;
+							private final String namedMethod;
+							private String[] args = new String[0];
+							private MethodComments comments;
 
 							public ParamHolder(String[] methodNames, String desc) {
 								this.method = methodNames[official];
 								this.desc = desc;
-								finaliser = this::write;
+								namedMethod = methodNames[named];
+								if (writeParams) finaliser = this::write;
+							}
+
+							private MethodComments comments() {
+								if (comments == null) {
+									comments = classComments.method(descRemapper.apply(desc), namedMethod);
+								}
+
+								return comments;
 							}
 
 							@Override
 							public ParameterVisitor visitParameter(long offset, String[] names, int index) {
-								if (args.length <= index) {
-									args = Arrays.copyOf(args, index + 1);
+								if (writeParams) {
+									if (args.length <= index) {
+										args = Arrays.copyOf(args, index + 1);
+									}
+
+									args[index] = names[named];
 								}
 
-								args[index] = names[named];
-								return null;
+								if (writeComments) {
+									return line -> comments().param(index, names[named]).add(line);
+								} else {
+									return null;
+								}
 							}
 
 							@Override
 							public LocalVisitor visitLocalVariable(long offset, String[] names, int localVariableIndex, int localVariableStartOffset, int localVariableTableIndex) {
-								return null;
+								if (writeComments) {
+									return line -> comments().local(localVariableIndex, localVariableStartOffset, localVariableTableIndex, names[named]).add(line);
+								} else {
+									return null;
+								}
 							}
 
 							@Override
 							public void visitComment(String line) {
+								if (writeComments) comments().add(line);
 							}
 
 							public void write() {
@@ -177,8 +220,8 @@ public class TinyV2toV1 {
 								throw new UncheckedIOException("Error writing tiny method", e);
 							}
 
-							if (writeParams) {
-								writeParams();
+							if (writeParams) writeParams();
+							if (writeParams || writeComments) {
 								return currentMethod = new ParamHolder(names, descriptor);
 							} else {
 								return null;
@@ -200,129 +243,238 @@ public class TinyV2toV1 {
 							}
 
 							if (writeParams) writeParams();
-							return null;
+							if (writeComments) {
+								CommentedEntry comments = new CommentedEntry("\tf\t" + descRemapper.apply(descriptor) + '\t' + names[named], "\t\tc\t");
+								classComments.fields.add(comments);
+								return comments::add;
+							} else {
+								return null;
+							}
 						}
 
 						private void writeParams() {
 							assert writeParams;
 							if (currentMethod != null) currentMethod.write();
+							currentMethod = null;
 							finaliser = null;
 						}
 
 						@Override
 						public void visitComment(String line) {
+							if (writeComments) classComments.comments.add(line);
 						}
 					};
 				}
 
+				private void flushComments() {
+					if (classComments != null) {
+						try {
+							classComments.write(commentOut);
+						} catch (IOException e) {
+							throw new UncheckedIOException("Error writing comments for " + classComments.className, e);
+						}
+					}
+				}
+
 				@Override
 				public void finish() {
 					if (finaliser != null) finaliser.run();
+					if (writeComments) flushComments();
 				}
 			});
 		} catch (IOException e) {
 			throw new UncheckedIOException("Error preparing to convert " + input + " to " + output, e);
 		}
-
-		if (comments != null) writeCommentFile(input, comments);
 	}
 
-	private static class FullClassComments {
-		public final String className;
-		final List<Class> classComments = new ArrayList<>();
-		final List<Field> fieldComments = new ArrayList<>();
-		final List<Method> methodComments = new ArrayList<>();
-		final Map<EntryTriple, List<Parameter>> parameterComments = new HashMap<>();
-		final Map<EntryTriple, List<LocalVariableComment>> localVariableComments = new HashMap<>();
+	/**
+	 * The named names for each class in the primary namespace of the given mappings, or an empty map if the primary namespace is already named.
+	 * Comments in the primary namespace will need descriptors remapping to named, which can mention classes from anywhere in the file.
+	 */
+	private static Map<String, String> readCommentClassNames(Path input) {
+		try (BufferedReader in = Files.newBufferedReader(input)) {
+			String header = in.readLine();
+			String[] parts = header != null ? header.split("\t") : new String[0];
+			if (parts.length > 3 && "named".equals(parts[3])) return Collections.emptyMap(); //Ideal case, comments will already be using the right names
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading header of " + input, e);
+		}
 
-		public FullClassComments(String className) {
-			this.className = className;
+		Map<String, String> classNames = new HashMap<>();
+		try (Reader in = new InputStreamReader(Files.newInputStream(input), StandardCharsets.UTF_8)) {
+			TinyV2Visitor.read(in, new MappingsVisitor() {
+				private int named;
+
+				@Override
+				public void visitVersion(int major, int minor) {
+				}
+
+				@Override
+				public void visitProperty(String name) {
+				}
+
+				@Override
+				public void visitProperty(String name, String value) {
+				}
+
+				@Override
+				public void visitNamespaces(String... namespaces) {
+					named = Arrays.asList(namespaces).indexOf("named");
+				}
+
+				@Override
+				public ClassVisitor visitClass(long offset, String[] names) {
+					classNames.put(names[0], names[named]);
+					return null;
+				}
+
+				@Override
+				public void finish() {
+				}
+			});
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading class names from " + input, e);
 		}
+
+		return classNames;
 	}
 
-	private static void writeCommentFile(Path from, Path to) {
-		try (InputStream in = Files.newInputStream(from); BufferedWriter out = Files.newBufferedWriter(to)) {
-			ExtendedMappings mappings = MappingsProvider.readFullTinyMappings(in, false);
+	/** The comment lines of a single entry, with the line that introduces it and the prefix for each comment */
+	private static class CommentedEntry {
+		final String header, prefix;
+		final List<String> comments = new ArrayList<>();
+
+		CommentedEntry(String header, String prefix) {
+			this.header = header;
+			this.prefix = prefix;
+		}
+
+		void add(String comment) {
+			comments.add(comment);
+		}
+
+		boolean isEmpty() {
+			return comments.isEmpty();
+		}
+
+		void write(BufferedWriter out) throws IOException {
+			out.write(header);
+			out.newLine();
 
-			if (!(mappings.getNamespaces() instanceof List<?>)) {
-				throw new AssertionError("Mapping namespaces in " + from + " not given in order?");
+			writeComments(out);
+		}
+
+		void writeComments(BufferedWriter out) throws IOException {
+			for (String line : comments) {
+				out.write(prefix);
+				writeEscaped(out, line);
+				out.newLine();
 			}
-			List<String> namespaces = (List<String>) mappings.getNamespaces();
+		}
+	}
+
+	private static class MethodComments extends CommentedEntry {
+		final List<CommentedEntry> params = new ArrayList<>();
+		final List<CommentedEntry> locals = new ArrayList<>();
+
+		MethodComments(String desc, String name) {
+			super("\tm\t" + desc + '\t' + name, "\t\tc\t");
+		}
+
+		CommentedEntry param(int index, String name) {
+			CommentedEntry param = new CommentedEntry("\t\tp\t" + index + '\t' + name, "\t\t\tc\t");
+			params.add(param);
+			return param;
+		}
 
-			if (namespaces.isEmpty()) {//There should actually be some mappings to convert
-				throw new IllegalArgumentException("Provided empty mappings at " + from);
+		CommentedEntry local(int index, int startOffset, int tableIndex, String name) {
+			CommentedEntry local = new CommentedEntry("\t\tv\t" + index + '\t' + startOffset + '\t' + tableIndex + '\t' + name, "\t\t\tc\t");
+			locals.add(local);
+			return local;
+		}
+
+		@Override
+		void write(BufferedWriter out) throws IOException {
+			super.write(out);
+
+			for (CommentedEntry param : params) {
+				if (!param.isEmpty()) param.write(out);
 			}
-			String primary = namespaces.get(0);
-
-			Map<String, String> classCorrection;
-			Map<EntryTriple, EntryTriple> methodCorrection, fieldCorrection;
-			Map<MethodParameter, MethodParameter> paramCorrection;
-			Map<LocalVariable, LocalVariable> localCorrection;
-			if ("named".equals(primary)) {//Ideal case, comments will already be using the right names
-				classCorrection = Collections.emptyMap();
-				methodCorrection = fieldCorrection = Collections.emptyMap();
-				paramCorrection = Collections.emptyMap();
-				localCorrection = Collections.emptyMap();
-			} else {//Comments will be in the primary namespace instead of named, will have to remap them
-				classCorrection = mappings.getClassEntries().stream().collect(Collectors.toMap(entry -> entry.get(primary), entry -> entry.get("named")));
-				methodCorrection = mappings.getMethodEntries().stream().collect(Collectors.toMap(entry -> entry.get(primary), entry -> entry.get("named")));
-				fieldCorrection = mappings.getFieldEntries().stream().collect(Collectors.toMap(entry -> entry.get(primary), entry -> entry.get("named")));
-				paramCorrection = mappings.getMethodParameterEntries().stream().collect(Collectors.toMap(entry -> entry.get(primary), entry -> entry.get("named")));
-				localCorrection = mappings.getLocalVariableEntries().stream().collect(Collectors.toMap(entry -> entry.get(primary), entry -> entry.get("named")));
+			for (CommentedEntry local : locals) {
+				if (!local.isEmpty()) local.write(out);
 			}
+		}
+	}
+
+	/** The comments for a single class, only held until the next class is visited so the whole file never has to be in memory */
+	private static class StreamedClassComments {
+		final String className;
+		final List<String> comments = new ArrayList<>();
+		final List<MethodComments> methods = new ArrayList<>();
+		final List<CommentedEntry> fields = new ArrayList<>();
+
+		StreamedClassComments(String className) {
+			this.className = className;
+		}
+
+		MethodComments method(String desc, String name) {
+			MethodComments method = new MethodComments(desc, name);
+			methods.add(method);
+			return method;
+		}
 
-			Map<String, FullClassComments> classToComments = new HashMap<>();
-			Comments comments = mappings.getComments();
+		private static boolean anyComments(List<? extends CommentedEntry> entries) {
+			return entries.stream().anyMatch(entry -> !entry.isEmpty());
+		}
 
-			for (Class comment : comments.getClassComments()) {
-				remapComment(className -> {
-					return classToComments.computeIfAbsent(className, FullClassComments::new).classComments;
-				}, comment, Class::getClassName, classCorrection, Class::new);
+		void write(BufferedWriter out) throws IOException {
+			if (comments.isEmpty() && !methods.stream().anyMatch(method -> !method.isEmpty() || anyComments(method.params) || anyComments(method.locals)) && !anyComments(fields)) {
+				return; //Nothing to write
 			}
-			for (Method comment : comments.getMethodComments()) {
-				remapComment(method -> {
-					return classToComments.computeIfAbsent(method.getOwner(), FullClassComments::new).methodComments;
-				}, comment, Method::getMethod, methodCorrection, Method::new);
+
+			out.write("c\t");
+			out.write(className);
+			out.newLine();
+
+			for (String line : comments) {//Slightly dubious whether repeated comments is supported or not
+				out.write("\tc\t");
+				writeEscaped(out, line);
+				out.newLine();
 			}
-			for (Field comment : comments.getFieldComments()) {
-				remapComment(field -> {
-					return classToComments.computeIfAbsent(field.getOwner(), FullClassComments::new).fieldComments;
-				}, comment, Field::getField, fieldCorrection, Field::new);
+
+			//Mirrors the order writeMappings would produce, commented methods first, then those with only commented parameters, then only commented locals
+			for (MethodComments method : methods) {
+				if (!method.isEmpty()) method.write(out);
 			}
-			for (Parameter comment : comments.getMethodParameterComments()) {
-				remapComment(param -> {
-					FullClassComments fullComments = classToComments.computeIfAbsent(param.getMethod().getOwner(), FullClassComments::new);
-					return fullComments.parameterComments.computeIfAbsent(param.getMethod(), k -> new ArrayList<>());
-				}, comment, Parameter::getParameter, paramCorrection, Parameter::new);
+			for (MethodComments method : methods) {
+				if (method.isEmpty() && anyComments(method.params)) method.write(out);
 			}
-			for (LocalVariableComment comment : comments.getLocalVariableComments()) {
-				remapComment(local -> {
-					FullClassComments fullComments = classToComments.computeIfAbsent(local.getMethod().getOwner(), FullClassComments::new);
-					return fullComments.localVariableComments.computeIfAbsent(local.getMethod(), k -> new ArrayList<>());
-				}, comment, LocalVariableComment::getLocalVariable, localCorrection, LocalVariableComment::new);
+			for (MethodComments method : methods) {
+				if (method.isEmpty() && !anyComments(method.params) && anyComments(method.locals)) method.write(out);
 			}
 
-			writeMappings(out, classToComments.values());
-		} catch (IOException e) {
-			throw new UncheckedIOException("Error converting " + from + " to " + to, e);
+			for (CommentedEntry field : fields) {
+				if (!field.isEmpty()) field.write(out);
+			}
 		}
 	}
 
-	private static <C extends CommentEntry, T> void remapComment(Function<T, List<C>> classToComments, C comment, Function<C, T> commentToTarget,
-			Map<T, T> correction, BiFunction<List<String>, T, C> reconstructor) {
-		T target = commentToTarget.apply(comment);
-		target = correction.getOrDefault(target, target);
-		classToComments.apply(target).add(reconstructor.apply(comment.getComments(), target));
+	private static class FullClassComments {
+		public final String className;
+		final List<Class> classComments = new ArrayList<>();
+		final List<Field> fieldComments = new ArrayList<>();
+		final List<Method> methodComments = new ArrayList<>();
+		final Map<EntryTriple, List<Parameter>> parameterComments = new HashMap<>();
+		final Map<EntryTriple, List<LocalVariableComment>> localVariableComments = new HashMap<>();
+
+		public FullClassComments(String className) {
+			this.className = className;
+		}
 	}
 
 	public static void writeComments(BufferedWriter out, MappingBlob mappings) throws IOException {
 		List<FullClassComments> comments = new ArrayList<>();
 
-		UnaryOperator<String> remapper = className -> {
-			String triedMapping = mappings.tryMapName(className);
-			return triedMapping != null ? triedMapping : className;
-		};
-
 		for (Mapping mapping : mappings) {
 			if (!mapping.hasAnyComments()) continue; //Nothing to write
 
@@ -332,7 +484,7 @@ public class TinyV2toV1 {
 			for (Mapping.Method method : mapping.methods()) {
 				if (!method.hasAnyComments()) continue;
 
-				EntryTriple entry = new EntryTriple(mapping.toOr(mapping.from), method.nameOr(method.fromName), method.desc(remapper));
+				EntryTriple entry = new EntryTriple(mapping.toOr(mapping.from), method.nameOr(method.fromName), method.desc(mappings));
 				if (method.hasComment()) comment.methodComments.add(new Method(Collections.singletonList(method.comment), entry));
 
 				method.iterateArgComments((argComment, index) -> {
@@ -344,7 +496,7 @@ public class TinyV2toV1 {
 			for (Mapping.Field field : mapping.fields()) {
 				if (!field.hasComment()) continue;
 
-				EntryTriple entry = new EntryTriple(mapping.toOr(mapping.from), field.nameOr(field.fromName), field.desc(remapper));
+				EntryTriple entry = new EntryTriple(mapping.toOr(mapping.from), field.nameOr(field.fromName), field.desc(mappings));
 				comment.fieldComments.add(new Field(Collections.singletonList(field.comment), entry));
 			}
 
@@ -522,7 +674,7 @@ public class TinyV2toV1 {
 
 	private static final String TO_ESCAPE = "\\\n\r\0\t";
 	private static final String ESCAPED = "\\nr0t";
-	private static void writeEscaped(Writer out, String text) throws IOException {
+	static void writeEscaped(Writer out, String text) throws IOException {
 		final int len = text.length();
 		int start = 0;
 
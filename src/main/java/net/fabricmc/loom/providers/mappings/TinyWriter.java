@@ -36,7 +36,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.stream.Collectors;
-import java.util.zip.GZIPOutputStream;
+
+import net.fabricmc.loom.util.ParallelGZIPOutputStream;
 
 public class TinyWriter implements AutoCloseable {
 	private final String[] namespaces;
@@ -54,7 +55,7 @@ public class TinyWriter implements AutoCloseable {
 			throw new IllegalArgumentException(uniqueNamespaces.stream().filter(namespace -> Collections.frequency(namespacePool, namespace) > 1).collect(Collectors.joining(", ", "Duplicate namespaces: ", "")));
 		}
 
-		writer = !compress ? Files.newBufferedWriter(file) : new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8));
+		writer = !compress ? Files.newBufferedWriter(file) : new BufferedWriter(new OutputStreamWriter(new ParallelGZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8));
 		writer.write("v1");
 		for (String namespace : this.namespaces = namespaces) {
 			writer.write('\t');
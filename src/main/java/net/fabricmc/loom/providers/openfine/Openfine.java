@@ -57,6 +57,7 @@ import net.fabricmc.loom.providers.JarNameFactory;
 import net.fabricmc.loom.providers.JarNamingStrategy;
 import net.fabricmc.loom.providers.MappingsProvider;
 import net.fabricmc.loom.providers.MappingsProvider.MappingFactory;
+import net.fabricmc.loom.providers.mappings.IndexedMappings;
 import net.fabricmc.loom.util.TinyRemapperMappingsHelper;
 import net.fabricmc.mappings.EntryTriple;
 import net.fabricmc.mappings.FieldEntry;
@@ -192,24 +193,19 @@ public class Openfine {
 	public static void applyBonusMappings(MappingsProvider mappingsProvider) throws IOException {
 		List<FieldEntry> extra = new ArrayList<>();
 
-		for (FieldEntry field : mappingsProvider.getMappings().getFieldEntries()) {
-			String interName = field.get("intermediary").getName();
-
-			switch (interName) {
-			case "field_1937": //Option#CLOUDS
-				extra.add(namespace -> {
-					EntryTriple real = field.get(namespace);
-					return new EntryTriple(real.getOwner(), "official".equals(namespace) ? "CLOUDS" : "CLOUDS_OF", real.getDesc());
-				});
-				break;
+		IndexedMappings mappings = mappingsProvider.getIndexedMappings();
+		for (FieldEntry field : mappings.getFieldsNamed("intermediary", "field_1937")) {//Option#CLOUDS
+			extra.add(namespace -> {
+				EntryTriple real = field.get(namespace);
+				return new EntryTriple(real.getOwner(), "official".equals(namespace) ? "CLOUDS" : "CLOUDS_OF", real.getDesc());
+			});
+		}
 
-			case "field_4062": //WorldRenderer#renderDistance
-				extra.add(namespace -> {
-					EntryTriple real = field.get(namespace);
-					return new EntryTriple(real.getOwner(), "official".equals(namespace) ? "renderDistance" : "renderDistance_OF", real.getDesc());
-				});
-				break;
-			}
+		for (FieldEntry field : mappings.getFieldsNamed("intermediary", "field_4062")) {//WorldRenderer#renderDistance
+			extra.add(namespace -> {
+				EntryTriple real = field.get(namespace);
+				return new EntryTriple(real.getOwner(), "official".equals(namespace) ? "renderDistance" : "renderDistance_OF", real.getDesc());
+			});
 		}
 
 		mappingsProvider.mcRemappingFactory = new MappingFactory() {
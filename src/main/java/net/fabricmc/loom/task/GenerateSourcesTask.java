@@ -142,7 +142,7 @@ public class GenerateSourcesTask extends AbstractLoomTask {
 		ProgressLogger progressLogger = ProgressLogger.getProgressFactory(getProject(), getClass().getName());
 		progressLogger.start("Adjusting line numbers", "linemap");
 
-		remapper.process(progressLogger, oldCompiledJar.toFile(), linemappedJarDestination.toFile());
+		remapper.process(progressLogger, oldCompiledJar.toFile(), linemappedJarDestination.toFile(), getExtension().getDevJarCompression());
 
 		progressLogger.completed();
 	}
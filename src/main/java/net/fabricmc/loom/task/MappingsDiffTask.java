@@ -0,0 +1,93 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.task;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Stopwatch;
+
+import org.gradle.api.logging.Logger;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.api.tasks.options.Option;
+
+import net.fabricmc.loom.providers.mappings.MappingBlob;
+import net.fabricmc.loom.providers.mappings.MappingDiff;
+import net.fabricmc.loom.providers.mappings.MappingDiff.Change;
+import net.fabricmc.loom.providers.mappings.MappingDiff.Type;
+import net.fabricmc.loom.providers.mappings.TinyReader;
+
+/**
+ * Prints out how many names differ between the project's current mappings and the given ones.
+ * Every individual change is printed at info level.
+ *
+ * @author Chocohead
+ */
+public class MappingsDiffTask extends AbstractLoomTask {
+	private String mappings;
+	private String from = "intermediary";
+	private String to = "named";
+
+	@Option(option = "mappings", description = "Mappings to compare against")
+	public void setMappings(String mappings) {
+		this.mappings = mappings;
+	}
+
+	@Option(option = "from", description = "Namespace to match the mappings up by")
+	public void setFrom(String from) {
+		this.from = from;
+	}
+
+	@Option(option = "to", description = "Namespace to compare the names of")
+	public void setTo(String to) {
+		this.to = to;
+	}
+
+	@TaskAction
+	public void doTask() {
+		Logger logger = getProject().getLogger();
+		File target = MigrateMappingsTask.loadMappings(getProject(), mappings);
+
+		try {
+			Stopwatch stopwatch = Stopwatch.createStarted();
+			MappingBlob current = new MappingBlob();
+			TinyReader.readTiny(getExtension().getMappingsProvider().MAPPINGS_TINY.toPath(), from, to, current);
+			logger.lifecycle(":read current mappings in " + stopwatch.elapsed(TimeUnit.MILLISECONDS) + "ms");
+
+			stopwatch.reset().start();
+			MappingBlob other = new MappingBlob();
+			try (FileSystem fs = FileSystems.newFileSystem(target.toPath(), null)) {
+				TinyReader.readTiny(fs.getPath("mappings/mappings.tiny"), from, to, other);
+			}
+			logger.lifecycle(":read " + target.getName() + " in " + stopwatch.elapsed(TimeUnit.MILLISECONDS) + "ms");
+
+			stopwatch.reset().start();
+			MappingDiff diff = MappingDiff.between(current, other);
+			logger.lifecycle(":compared mappings in " + stopwatch.elapsed(TimeUnit.MILLISECONDS) + "ms");
+
+			if (diff.isEmpty()) {
+				logger.lifecycle("No names differ");
+			} else {
+				for (Change change : diff.getChanges()) {
+					logger.info('\t' + change.type.name() + ' ' + change);
+				}
+
+				Map<Type, Integer> counts = diff.countChanges();
+				logger.lifecycle(counts.get(Type.CLASS) + " classes, " + counts.get(Type.FIELD) + " fields, " + counts.get(Type.METHOD) + " methods and "
+						+ counts.get(Type.PARAMETER) + " parameters renamed, touching " + diff.getChangedClasses().size() + " classes");
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading mappings", e);
+		}
+	}
+}
@@ -26,15 +26,11 @@ package net.fabricmc.loom.task;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -52,14 +48,12 @@ import org.gradle.api.tasks.TaskAction;
 import org.gradle.api.tasks.options.Option;
 
 import net.fabricmc.loom.LoomGradleExtension;
+import net.fabricmc.loom.providers.MappingsCache;
 import net.fabricmc.loom.providers.MappingsProvider;
 import net.fabricmc.loom.providers.MinecraftMappedProvider;
+import net.fabricmc.loom.providers.mappings.IndexedMappings;
 import net.fabricmc.loom.util.SourceRemapper;
-import net.fabricmc.mappings.ClassEntry;
 import net.fabricmc.mappings.EntryTriple;
-import net.fabricmc.mappings.FieldEntry;
-import net.fabricmc.mappings.Mappings;
-import net.fabricmc.mappings.MethodEntry;
 
 public class MigrateMappingsTask extends AbstractLoomTask {
 	private Path inputDir;
@@ -105,12 +99,12 @@ public class MigrateMappingsTask extends AbstractLoomTask {
 
 		Files.createDirectories(outputDir);
 
-		File mappings = loadMappings();
+		File mappings = loadMappings(project, this.mappings);
 		MappingsProvider mappingsProvider = extension.getMappingsProvider();
 
 		try {
-			Mappings currentMappings = mappingsProvider.getMappings();
-			Mappings targetMappings = getMappings(mappings);
+			IndexedMappings currentMappings = mappingsProvider.getIndexedMappings();
+			IndexedMappings targetMappings = getMappings(mappings);
 			migrateMappings(project, extension.getMinecraftMappedProvider(), inputDir, outputDir, currentMappings, targetMappings, doMixins);
 			project.getLogger().lifecycle(":remapped project written to " + outputDir.toAbsolutePath());
 		} catch (IOException e) {
@@ -118,9 +112,7 @@ public class MigrateMappingsTask extends AbstractLoomTask {
 		}
 	}
 
-	private File loadMappings() {
-		Project project = getProject();
-
+	static File loadMappings(Project project, String mappings) {
 		if (mappings == null || mappings.isEmpty()) {
 			throw new IllegalArgumentException("No mappings were specified. Use --mappings=\"\" to specify target mappings");
 		}
@@ -147,14 +139,12 @@ public class MigrateMappingsTask extends AbstractLoomTask {
 		return Iterables.getOnlyElement(files);
 	}
 
-	private static Mappings getMappings(File mappings) throws IOException {
-		try (FileSystem fs = FileSystems.newFileSystem(mappings.toPath(), null); InputStream in = Files.newInputStream(fs.getPath("mappings/mappings.tiny"))) {
-			return net.fabricmc.mappings.MappingsProvider.readTinyMappings(in);
-		}
+	private static IndexedMappings getMappings(File mappings) throws IOException {
+		return MappingsCache.INSTANCE.get(mappings.toPath(), "mappings/mappings.tiny");
 	}
 
 	private static void migrateMappings(Project project, MinecraftMappedProvider minecraftMappedProvider,
-										Path inputDir, Path outputDir, Mappings currentMappings, Mappings targetMappings, boolean doMixins
+										Path inputDir, Path outputDir, IndexedMappings currentMappings, IndexedMappings targetMappings, boolean doMixins
 	) throws IOException {
 		project.getLogger().lifecycle(":joining mappings");
 		@SuppressWarnings("resource") //Hush, it doesn't need closing
@@ -180,7 +170,7 @@ public class MigrateMappingsTask extends AbstractLoomTask {
 	}
 
 	private static class MappingsJoiner extends MappingsReader {
-		private final Mappings sourceMappings, targetMappings;
+		private final IndexedMappings sourceMappings, targetMappings;
 		private final String fromNamespace, toNamespace;
 
 		/**
@@ -192,7 +182,7 @@ public class MigrateMappingsTask extends AbstractLoomTask {
 		 * Since we only use intermediary names (and not descriptors) to match, and intermediary names are unique,
 		 * this will migrate methods that have had their signature changed too.
 		 */
-		private MappingsJoiner(Mappings sourceMappings, Mappings targetMappings, String fromNamespace, String toNamespace) {
+		private MappingsJoiner(IndexedMappings sourceMappings, IndexedMappings targetMappings, String fromNamespace, String toNamespace) {
 			this.sourceMappings = sourceMappings;
 			this.targetMappings = targetMappings;
 			this.fromNamespace = fromNamespace;
@@ -201,27 +191,27 @@ public class MigrateMappingsTask extends AbstractLoomTask {
 
 		@Override
 		public MappingSet read(MappingSet mappings) {
-			Map<String, ClassEntry> targetClasses = targetMappings.getClassEntries().stream().collect(Collectors.toMap(mapping -> mapping.get(fromNamespace), Function.identity()));
-			Map<EntryTriple, FieldEntry> targetFields = targetMappings.getFieldEntries().stream().collect(Collectors.toMap(mapping -> mapping.get(fromNamespace), Function.identity()));
-			Map<EntryTriple, MethodEntry> targetMethods = targetMappings.getMethodEntries().stream().collect(Collectors.toMap(mapping -> mapping.get(fromNamespace), Function.identity()));
+			Map<String, String> targetClasses = targetMappings.getClasses(fromNamespace, toNamespace);
+			Map<EntryTriple, EntryTriple> targetFields = targetMappings.getFields(fromNamespace, toNamespace);
+			Map<EntryTriple, EntryTriple> targetMethods = targetMappings.getMethods(fromNamespace, toNamespace);
 
-			for (ClassEntry entry : sourceMappings.getClassEntries()) {
-				String from = entry.get(toNamespace);
-				String to = targetClasses.getOrDefault(entry.get(fromNamespace), entry).get(toNamespace);
+			for (Entry<String, String> entry : sourceMappings.getClasses(fromNamespace, toNamespace).entrySet()) {
+				String from = entry.getValue();
+				String to = targetClasses.getOrDefault(entry.getKey(), from);
 
 				mappings.getOrCreateClassMapping(from).setDeobfuscatedName(to);
 			}
 
-			for (FieldEntry entry : sourceMappings.getFieldEntries()) {
-				EntryTriple fromEntry = entry.get(toNamespace);
-				EntryTriple toEntry = targetFields.getOrDefault(entry.get(fromNamespace), entry).get(toNamespace);
+			for (Entry<EntryTriple, EntryTriple> entry : sourceMappings.getFields(fromNamespace, toNamespace).entrySet()) {
+				EntryTriple fromEntry = entry.getValue();
+				EntryTriple toEntry = targetFields.getOrDefault(entry.getKey(), fromEntry);
 
 				mappings.getOrCreateClassMapping(fromEntry.getOwner()).getOrCreateFieldMapping(fromEntry.getName(), fromEntry.getDesc()).setDeobfuscatedName(toEntry.getName());
 			}
 
-			for (MethodEntry entry : sourceMappings.getMethodEntries()) {
-				EntryTriple fromEntry = entry.get(toNamespace);
-				EntryTriple toEntry = targetMethods.getOrDefault(entry.get(fromNamespace), entry).get(toNamespace);
+			for (Entry<EntryTriple, EntryTriple> entry : sourceMappings.getMethods(fromNamespace, toNamespace).entrySet()) {
+				EntryTriple fromEntry = entry.getValue();
+				EntryTriple toEntry = targetMethods.getOrDefault(entry.getKey(), fromEntry);
 
 				mappings.getOrCreateClassMapping(fromEntry.getOwner()).getOrCreateMethodMapping(fromEntry.getName(), fromEntry.getDesc()).setDeobfuscatedName(toEntry.getName());
 			}
@@ -44,6 +44,7 @@ import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.providers.MappingsProvider;
 import net.fabricmc.loom.util.AccessTransformerHelper;
 import net.fabricmc.loom.util.GradleSupport;
+import net.fabricmc.loom.util.JarEdits;
 import net.fabricmc.loom.util.MixinRefmapHelper;
 import net.fabricmc.loom.util.NestedJars;
 import net.fabricmc.loom.util.TinyRemapperMappingsHelper;
@@ -88,7 +89,7 @@ public class RemapJarTask extends Jar {
 
 		TinyRemapper.Builder remapperBuilder = TinyRemapper.newRemapper();
 
-		remapperBuilder = remapperBuilder.withMappings(TinyRemapperMappingsHelper.create(extension, mappingsProvider.getMappings(), fromM, toM));
+		remapperBuilder = remapperBuilder.withMappings(TinyRemapperMappingsHelper.create(extension, mappingsProvider.getIndexedMappings(), fromM, toM));
 		remapperBuilder.ignoreConflicts(extension.shouldBulldozeMappings());
 
 		if (mixinMapFile.exists()) {
@@ -107,6 +108,15 @@ public class RemapJarTask extends Jar {
 
 		TinyRemapper remapper = remapperBuilder.build();
 
+		//Anything else which needs changing is added as the jar is written, rather than each rewriting it again afterwards
+		JarEdits edits = new JarEdits();
+
+		if (MixinRefmapHelper.addRefmapName(task.getLogger(), extension.getRefmapName(task), extension.getMixinJsonVersion(), input.toFile(), edits)) {
+			task.getLogger().debug("Transforming mixin reference maps in output JAR");
+		}
+
+		boolean nesting = addNestedDependencies && NestedJars.addNestedJars(project, task.getLogger(), output.toFile(), edits);
+
 		try (OutputConsumerPath outputConsumer = new OutputConsumerPath(output)) {
 			outputConsumer.addNonClassFiles(input);
 			remapper.readClassPath(classpath);
@@ -122,6 +132,25 @@ public class RemapJarTask extends Jar {
 
 				if (did) task.getLogger().info("Remapped access transformer");
 			}
+
+			boolean notingConversion = !skipATs && convertAT;
+			if (notingConversion) AccessTransformerHelper.noteConversion(task.getLogger(), output, edits);
+
+			Set<String> edited = edits.apply(input, outputConsumer, task.getTemporaryDir().toPath().resolve("edits"));
+
+			if (notingConversion) {
+				if (edited.contains("fabric.mod.json")) {
+					task.getLogger().debug("Noted access widener in fabric.mod.json");
+				} else {
+					task.getLogger().warn("Failed to note access widener in fabric.mod.json!");
+				}
+			}
+
+			if (nesting && edited.contains("fabric.mod.json")) {
+				task.getLogger().debug("Added nested jar paths to mod json");
+			} else {
+				task.getLogger().debug(addNestedDependencies ? "No nested jars to add" : "Skipping trying to nest any jars");
+			}
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to remap " + input + " to " + output, e);
 		} finally {
@@ -131,24 +160,6 @@ public class RemapJarTask extends Jar {
 		if (!Files.exists(output)) {
 			throw new RuntimeException("Failed to remap " + input + " to " + output + " - file missing!");
 		}
-
-		if (!skipATs && convertAT) {
-			if (AccessTransformerHelper.noteConversion(task.getLogger(), output.toFile())) {
-				task.getLogger().debug("Noted access widener in fabric.mod.json");
-			} else {
-				task.getLogger().warn("Failed to note access widener in fabric.mod.json!");
-			}
-		}
-
-		if (MixinRefmapHelper.addRefmapName(extension.getRefmapName(task), extension.getMixinJsonVersion(), output.toFile())) {
-			task.getLogger().debug("Transformed mixin reference maps in output JAR!");
-		}
-
-		if (addNestedDependencies && NestedJars.addNestedJars(project, task.getLogger(), output.toFile())) {
-			task.getLogger().debug("Added nested jar paths to mod json");
-		} else {
-			task.getLogger().debug(addNestedDependencies ? "No nested jars to add" : "Skipping trying to nest any jars");
-		}
 	}
 
 	@InputFile
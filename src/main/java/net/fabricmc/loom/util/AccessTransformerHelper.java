@@ -33,12 +33,14 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -59,10 +61,7 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.Remapper;
 
-import org.zeroturnaround.zip.ZipUtil;
 import org.zeroturnaround.zip.transform.ByteArrayZipEntryTransformer;
-import org.zeroturnaround.zip.transform.StringZipEntryTransformer;
-import org.zeroturnaround.zip.transform.ZipEntryTransformerEntry;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -153,21 +152,18 @@ public class AccessTransformerHelper {
 		}
 	}
 
-	public static boolean noteConversion(Logger logger, File modJar) {
-		return ZipUtil.transformEntry(modJar, new ZipEntryTransformerEntry("fabric.mod.json", new StringZipEntryTransformer() {
-			@Override
-			protected String transform(ZipEntry zipEntry, String input) throws IOException {
-				JsonObject json = NestedJars.GSON.fromJson(input, JsonObject.class);
+	public static void noteConversion(Logger logger, Path modJar, JarEdits edits) {
+		edits.transform("fabric.mod.json", input -> {
+			JsonObject json = NestedJars.GSON.fromJson(input, JsonObject.class);
 
-				if (!json.has(BAD_AT_NAME)) {
-					json.addProperty(BAD_AT_NAME, MAGICALLY_BAD_AT_NAME);
-				} else {
-					logger.warn("Already have AW in " + modJar + ": " + json.get(BAD_AT_NAME));
-				}
-
-				return NestedJars.GSON.toJson(json);
+			if (!json.has(BAD_AT_NAME)) {
+				json.addProperty(BAD_AT_NAME, MAGICALLY_BAD_AT_NAME);
+			} else {
+				logger.warn("Already have AW in " + modJar + ": " + json.get(BAD_AT_NAME));
 			}
-		}));
+
+			return NestedJars.GSON.toJson(json);
+		});
 	}
 
 	public static boolean deobfATs(File jar, TinyRemapper tiny, OutputConsumerPath output) throws IOException {
@@ -433,18 +429,42 @@ public class AccessTransformerHelper {
 		}
 	}
 
-	public static class ZipEntryAT extends ZipEntryTransformerEntry {
-		public ZipEntryAT(ZipAT transformer) {
-			super(transformer.className + ".class", transformer);
+	/** Access transformers which are applied to classes as they are written out, rather than by rewriting a whole jar afterwards */
+	public static class ClassATs {
+		private final Map<String, ZipAT> transformers;
+
+		ClassATs(Map<String, ZipAT> transformers) {
+			this.transformers = transformers;
+		}
+
+		/** Transforms the given class if there is anything to do to it, otherwise gives back the data as it is */
+		public byte[] transform(String className, byte[] data) {
+			ZipAT transformer = transformers.get(className);
+			if (transformer == null) return data;
+
+			try {
+				return transformer.transform(null, data);
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error transforming " + className, e);
+			}
 		}
 
-		/** Whether the transformer for this entry has been applied */
-		public boolean didTransform() {
-			return ((ZipAT) getTransformer()).hasTransformed;
+		/** The transformers as {@link ZipRewriter} wants them, keyed by the path of each class */
+		public Map<String, ZipRewriter.EntryTransformer> forEntries() {
+			return transformers.keySet().stream().collect(Collectors.toMap(className -> className + ".class", className -> (name, data) -> transform(className, data)));
 		}
+
+		/** The names of any classes which were expected to be transformed but never were */
+		public List<String> getMissed() {
+			return transformers.values().stream().filter(transformer -> !transformer.hasTransformed).map(transformer -> transformer.className).sorted().collect(Collectors.toList());
+		}
+	}
+
+	public static ClassATs makeClassATs(Set<String> classPool, Map<String, Set<String>> transforms, String wildcard) {
+		return new ClassATs(makeATs(classPool, transforms, wildcard));
 	}
 
-	public static ZipEntryAT[] makeZipATs(Set<String> classPool, Map<String, Set<String>> transforms, String wildcard) {
+	private static Map<String, ZipAT> makeATs(Set<String> classPool, Map<String, Set<String>> transforms, String wildcard) {
 		Map<String, ZipAT> transformers = transforms.entrySet().stream().collect(Collectors.toMap(Entry::getKey, entry -> new ZipAT(entry, wildcard)));
 
 		Set<String> classChanges = transformers.entrySet().stream().filter(entry -> entry.getValue().changesOwnAccess()).map(Entry::getKey).collect(Collectors.toSet());
@@ -479,6 +499,6 @@ public class AccessTransformerHelper {
 			}
 		}
 
-		return transformers.values().stream().map(ZipEntryAT::new).toArray(ZipEntryAT[]::new);
+		return transformers;
 	}
 }
\ No newline at end of file
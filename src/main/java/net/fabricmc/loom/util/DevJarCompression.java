@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import net.fabricmc.tinyremapper.OutputConsumerPath;
+
+/**
+ * How jars which only ever go on local classpaths (rather than being published) are compressed.
+ *
+ * @author Chocohead
+ */
+public enum DevJarCompression {
+	/** Deflate at the default level, the same as any other jar */
+	DEFAULT(Deflater.DEFAULT_COMPRESSION),
+	/** Deflate at the fastest level, making bigger jars in less time. Jars written through a zip file system will be deflated at the default level instead */
+	FAST(Deflater.BEST_SPEED),
+	/**
+	 * Don't compress at all, making the biggest jars in the least time. Entries which are already deflated in a jar
+	 * being rewritten in place, or which aren't made through {@link #createEntry(String, byte[])}, stay deflated at level 0 instead
+	 */
+	STORED(Deflater.NO_COMPRESSION);
+
+	private final int level;
+
+	private DevJarCompression(int level) {
+		this.level = level;
+	}
+
+	/** Sets the given stream to write entries out at this compression level */
+	public <T extends ZipOutputStream> T apply(T out) {
+		out.setLevel(level);
+		return out;
+	}
+
+	/** The {@link Deflater} level this compresses at */
+	public int getLevel() {
+		return level;
+	}
+
+	/** Makes an entry for the given contents to write to a stream {@link #apply(ZipOutputStream) set} to this level, which is left uncompressed for {@link #STORED} */
+	public ZipEntry createEntry(String name, byte[] contents) {
+		ZipEntry entry = new ZipEntry(name);
+
+		if (this == STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(contents);
+
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(contents.length);
+			entry.setCompressedSize(contents.length);
+			entry.setCrc(crc.getValue());
+		}
+
+		return entry;
+	}
+
+	/** Makes an output to write the given (new) jar at this compression level, where the zip file system allows */
+	public OutputConsumerPath createOutput(Path jar) throws IOException {
+		if (this != STORED) return new OutputConsumerPath(jar);
+
+		Map<String, String> env = new HashMap<>();
+		env.put("create", "true");
+		env.put("noCompression", "true");
+
+		FileSystem fs = FileSystems.newFileSystem(URI.create("jar:" + jar.toUri()), env);
+		try {
+			return new OutputConsumerPath(fs.getPath("/"), true);
+		} catch (Throwable t) {
+			try {
+				fs.close();
+			} catch (IOException e) {
+				t.addSuppressed(e);
+			}
+
+			throw t;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+
+/**
+ * Content hashes of files, remembered for as long as the file's size and modification time stay the same.
+ * Only so many files are remembered at once, and files modified too recently to trust their timestamp aren't remembered at all.
+ *
+ * @author Chocohead
+ */
+public final class FileHashes {
+	private static class Snapshot {
+		final long size, modified;
+		final HashCode hash;
+
+		Snapshot(BasicFileAttributes attributes, HashCode hash) {
+			size = attributes.size();
+			modified = attributes.lastModifiedTime().toMillis();
+			this.hash = hash;
+		}
+
+		boolean matches(BasicFileAttributes attributes) {
+			return size == attributes.size() && modified == attributes.lastModifiedTime().toMillis();
+		}
+	}
+	private static final Cache<Path, Snapshot> HASHES = CacheBuilder.newBuilder().maximumSize(1024).build();
+	/** The coarsest modification time a file system is expected to have (FAT's), a file changed again within this wouldn't look any different */
+	private static final long TIMESTAMP_GRANULARITY = TimeUnit.SECONDS.toMillis(2);
+
+	private FileHashes() {
+	}
+
+	@SuppressWarnings("deprecation") //Not for security, just identity
+	public static HashCode sha1(Path file) throws IOException {
+		file = file.toAbsolutePath();
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+		Snapshot known = HASHES.getIfPresent(file);
+		if (known == null || !known.matches(attributes)) {
+			known = new Snapshot(attributes, MoreFiles.asByteSource(file).hash(Hashing.sha1()));
+
+			//If the file was only just modified it could still change without its timestamp doing so
+			if (Math.abs(System.currentTimeMillis() - known.modified) > TIMESTAMP_GRANULARITY) {
+				HASHES.put(file, known);
+			} else {
+				HASHES.invalidate(file);
+			}
+		}
+
+		return known.hash;
+	}
+}
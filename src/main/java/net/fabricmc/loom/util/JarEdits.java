@@ -0,0 +1,87 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.IOUtils;
+
+import net.fabricmc.tinyremapper.OutputConsumerPath;
+
+/**
+ * Changes to the non-class files of a jar which is being remapped, made as the remapped jar is written
+ * rather than by rewriting the whole jar again for each change afterwards.
+ *
+ * @author Chocohead
+ */
+public final class JarEdits {
+	private final Map<String, UnaryOperator<String>> transforms = new LinkedHashMap<>();
+	private final Map<String, Path> additions = new LinkedHashMap<>();
+
+	/** Changes the (UTF-8) contents of the given entry, after any other changes which have already been given for it */
+	public void transform(String entry, UnaryOperator<String> transformer) {
+		transforms.merge(entry, transformer, (first, second) -> contents -> second.apply(first.apply(contents)));
+	}
+
+	/** Adds the given file as the given entry, replacing anything which would otherwise be there */
+	public void add(String entry, Path file) {
+		additions.put(entry, file);
+	}
+
+	public boolean isEmpty() {
+		return transforms.isEmpty() && additions.isEmpty();
+	}
+
+	/**
+	 * Makes the changes to the given output, which should already have had the non-class files from the given input copied into it.
+	 * The entries to transform are read from the input, then written out to the given temporary directory to be added to the output.
+	 *
+	 * @return The entries which were transformed, any which weren't in the input are left out
+	 */
+	public Set<String> apply(Path input, OutputConsumerPath output, Path tempDir) throws IOException {
+		for (Entry<String, Path> entry : additions.entrySet()) {
+			output.addNonClassFile(entry.getValue(), entry.getKey());
+		}
+
+		Set<String> transformed = new HashSet<>();
+		if (transforms.isEmpty()) return transformed;
+
+		try (ZipFile zip = new ZipFile(input.toFile())) {
+			for (Entry<String, UnaryOperator<String>> entry : transforms.entrySet()) {
+				ZipEntry zipEntry = zip.getEntry(entry.getKey());
+				if (zipEntry == null) continue;
+
+				String contents;
+				try (InputStream in = zip.getInputStream(zipEntry)) {
+					contents = IOUtils.toString(in, StandardCharsets.UTF_8);
+				}
+
+				Path edited = tempDir.resolve(entry.getKey());
+				Files.createDirectories(edited.getParent());
+				Files.write(edited, entry.getValue().apply(contents).getBytes(StandardCharsets.UTF_8));
+
+				output.addNonClassFile(edited, entry.getKey());
+				transformed.add(entry.getKey());
+			}
+		}
+
+		return transformed;
+	}
+}
@@ -32,7 +32,6 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.zip.ZipEntry;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -41,10 +40,6 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
-import org.zeroturnaround.zip.ZipUtil;
-import org.zeroturnaround.zip.transform.ByteArrayZipEntryTransformer;
-import org.zeroturnaround.zip.transform.ZipEntryTransformerEntry;
-
 import net.fabricmc.loom.util.progress.ProgressLogger;
 
 /**
@@ -86,32 +81,23 @@ public class LineNumberRemapper {
 		}
 	}
 
-	public void process(ProgressLogger logger, File from, File to) {
-		ZipEntryTransformerEntry[] transformers = lineMap.entrySet().stream().map(entry -> {
-			String className = entry.getKey();
-
-			return new ZipEntryTransformerEntry(className + ".class", new ByteArrayZipEntryTransformer() {
-				private final RClass rClass = entry.getValue();
-
-				@Override
-				protected byte[] transform(ZipEntry zipEntry, byte[] input) throws IOException {
-					if (logger != null) logger.progress("Remapping " + className);
+	public void process(ProgressLogger logger, File from, File to, DevJarCompression compression) throws IOException {
+		//Only the classes with line numbers to remap need rewriting, everything else can be copied across still compressed
+		Map<String, ZipRewriter.EntryTransformer> transformers = new HashMap<>();
 
-					ClassReader reader = new ClassReader(input);
-					ClassWriter writer = new ClassWriter(reader, 0);
+		for (RClass rClass : lineMap.values()) {
+			transformers.put(rClass.name + ".class", (name, data) -> {
+				if (logger != null) logger.progress("Remapping " + rClass.name);
 
-					reader.accept(new LineNumberVisitor(Opcodes.ASM7, writer, rClass), 0);
-					return writer.toByteArray();
-				}
+				ClassReader reader = new ClassReader(data);
+				ClassWriter writer = new ClassWriter(reader, 0);
 
-				@Override
-				protected boolean preserveTimestamps() {
-					return true; //Why not?
-				}
+				reader.accept(new LineNumberVisitor(Opcodes.ASM7, writer, rClass), 0);
+				return writer.toByteArray();
 			});
-		}).toArray(ZipEntryTransformerEntry[]::new);
+		}
 
-		ZipUtil.transformEntries(from, transformers, to);
+		ZipRewriter.transform(from.toPath(), to.toPath(), transformers, compression.getLevel());
 	}
 
 	private static class LineNumberVisitor extends ClassVisitor {
@@ -148,7 +134,6 @@ public class LineNumberRemapper {
 	}
 
 	private static class RClass {
-		@SuppressWarnings("unused")
 		private final String name;
 		private int maxLine;
 		private int maxLineDest;
@@ -25,24 +25,30 @@
 package net.fabricmc.loom.util;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
+import com.google.common.base.Throwables;
+
 import org.gradle.api.InvalidUserDataException;
 import org.gradle.api.Project;
 import org.gradle.api.logging.Logger;
@@ -55,12 +61,10 @@ import net.fabricmc.loom.providers.MappingsProvider;
 import net.fabricmc.loom.providers.MinecraftMappedProvider;
 import net.fabricmc.loom.providers.MinecraftProvider;
 import net.fabricmc.loom.providers.MinecraftVersionAdaptable;
+import net.fabricmc.loom.providers.mappings.IndexedMappings;
 import net.fabricmc.loom.providers.mappings.MappingBlob;
-import net.fabricmc.loom.util.AccessTransformerHelper.ZipEntryAT;
-import net.fabricmc.mappings.ClassEntry;
+import net.fabricmc.loom.util.AccessTransformerHelper.ClassATs;
 import net.fabricmc.mappings.EntryTriple;
-import net.fabricmc.mappings.Mappings;
-import net.fabricmc.mappings.MethodEntry;
 import net.fabricmc.stitch.commands.CommandFixNesting;
 import net.fabricmc.stitch.util.Pair;
 import net.fabricmc.tinyremapper.IMappingProvider;
@@ -70,51 +74,128 @@ import net.fabricmc.tinyremapper.TinyRemapper;
 import net.fabricmc.tinyremapper.TinyUtils;
 
 public class MapJarsTiny {
+	/** Special marker for transforming the access of a class itself rather than one of its methods */
+	private static final String WILDCARD = "<*>";
+
 	public static void mapJars(MinecraftProvider jarProvider, MinecraftMappedProvider mapProvider, Project project) throws IOException {
+		mapJars(jarProvider, mapProvider, project, Collections.emptySet(), null, null);
+	}
+
+	/**
+	 * Remaps the merged jar to intermediary and named, applying the given access transformations to the classes as they are remapped.
+	 * If base jars are given, the remapped jars from before any transformations are written out to them too.
+	 */
+	public static void mapJars(MinecraftProvider jarProvider, MinecraftMappedProvider mapProvider, Project project,
+			Set<Pair<String, String>> ats, File baseIntermediaryJar, File baseNamedJar) throws IOException {
 		LoomGradleExtension extension = project.getExtensions().getByType(LoomGradleExtension.class);
 		MappingsProvider mappingsProvider = extension.getMappingsProvider();
 
 		Path[] classpath = mapProvider.getMapperPaths().stream().map(File::toPath).toArray(Path[]::new);
 
-		interJar: {
-			String fromM;
-			switch (jarProvider.getMergeStrategy()) {
-			case FIRST:
-				fromM = "official";
-				break;
+		Pair<Map<String, Set<String>>, Map<String, Set<String>>> transforms = !ats.isEmpty() ? resolveATs(project.getLogger(), ats, mappingsProvider.getIndexedMappings()) : null;
+		if (transforms != null) project.getLogger().lifecycle(":transforming minecraft whilst remapping");
+		Path interJar = mapProvider.getIntermediaryJar().toPath();
+		Path namedJar = mapProvider.getMappedJar().toPath();
+		Path baseInterJar = baseIntermediaryJar != null ? baseIntermediaryJar.toPath() : null;
+		Path baseNamed = baseNamedJar != null ? baseNamedJar.toPath() : null;
+
+		String fromM;
+		switch (jarProvider.getMergeStrategy()) {
+		case FIRST:
+			fromM = "official";
+			break;
+
+		case CLIENT_ONLY:
+			fromM = "client";
+			break;
+
+		case SERVER_ONLY:
+			fromM = "server";
+			break;
+
+		case LAST:
+			if (!mapProvider.getIntermediaryJar().exists()) {//It may already exist if the merged jar is purely in Intermediary names
+				Files.copy(jarProvider.getMergedJar(), mapProvider.getIntermediaryJar().toPath());
+			} else {
+				assert jarProvider.getMergedJar().toFile().equals(mapProvider.getIntermediaryJar());
+			}
+			fromM = null;
+			break;
 
-			case CLIENT_ONLY:
-				fromM = "client";
-				break;
+		case INDIFFERENT:
+		default:
+			throw new IllegalStateException("Unexpected jar merge strategy " + jarProvider.getMergeStrategy());
+		}
 
-			case SERVER_ONLY:
-				fromM = "server";
-				break;
+		IndexedMappings mappings = mappingsProvider.getIndexedMappings();
+		ClassATs namedATs = transforms != null ? AccessTransformerHelper.makeClassATs(mappings.getClasses("named", "intermediary").keySet(), transforms.getLeft(), WILDCARD) : null;
+		Path tempInterJar = null;
 
-			case LAST:
-				if (!mapProvider.getIntermediaryJar().exists()) {//It may already exist if the merged jar is purely in Intermediary names
-					Files.copy(jarProvider.getMergedJar(), mapProvider.getIntermediaryJar().toPath());
+		if (fromM == null) {
+			//The intermediary jar is only a copy of the merged jar, so it has to be left alone until the named jar is made from it
+			mapJar(project.getLogger(), extension, mappingsProvider, interJar, classpath, namedJar, baseNamed, namedATs, "intermediary", "named");
+
+			if (baseInterJar != null) Files.copy(interJar, baseInterJar, StandardCopyOption.REPLACE_EXISTING);
+			if (transforms != null) {
+				project.getLogger().info("Transforming intermediary jar");
+				doTheDeed(interJar.toFile(), mappings.getClasses("intermediary", "named").keySet(), transforms.getRight(), WILDCARD, extension.getDevJarCompression());
+			}
+		} else {
+			ClassATs interATs = transforms != null ? AccessTransformerHelper.makeClassATs(mappings.getClasses("intermediary", "named").keySet(), transforms.getRight(), WILDCARD) : null;
+
+			if (extension.shouldRemapInOnePass()) {
+				//Both jars come straight from the merged jar, so the named one doesn't have to wait for the intermediary one to be written
+				CompletableFuture<Void> interRemap = CompletableFuture.runAsync(() -> {
+					try {
+						mapJar(project.getLogger(), extension, mappingsProvider, jarProvider.getMergedJar(), classpath, interJar, baseInterJar, interATs, fromM, "intermediary");
+					} catch (IOException e) {
+						throw new UncheckedIOException("Error remapping " + jarProvider.getMergedJar() + " to intermediary", e);
+					}
+				}, ForkJoinPool.commonPool());
+
+				mapJar(project.getLogger(), extension, mappingsProvider, jarProvider.getMergedJar(), classpath, namedJar, baseNamed, namedATs, fromM, "named");
+
+				try {
+					interRemap.join();
+				} catch (CompletionException e) {
+					Throwables.throwIfUnchecked(e.getCause());
+					throw new RuntimeException("Error remapping " + jarProvider.getMergedJar() + " to intermediary", e.getCause());
+				}
+			} else {
+				//The named jar needs making from the intermediary jar before it has been transformed
+				Path untransformedInterJar;
+				if (interATs == null) {
+					untransformedInterJar = null;
+				} else if (baseInterJar != null) {
+					untransformedInterJar = baseInterJar;
 				} else {
-					assert jarProvider.getMergedJar().toFile().equals(mapProvider.getIntermediaryJar());
+					untransformedInterJar = tempInterJar = interJar.resolveSibling("untransformed-" + interJar.getFileName());
 				}
-				break interJar;
 
-			case INDIFFERENT:
-			default:
-				throw new IllegalStateException("Unexpected jar merge strategy " + jarProvider.getMergeStrategy());
+				mapJar(project.getLogger(), extension, mappingsProvider, jarProvider.getMergedJar(), classpath, interJar, untransformedInterJar, interATs, fromM, "intermediary");
+				mapJar(project.getLogger(), extension, mappingsProvider, untransformedInterJar != null ? untransformedInterJar : interJar, classpath, namedJar, baseNamed, namedATs, "intermediary", "named");
 			}
 
-			mapJar(project.getLogger(), extension, mappingsProvider, jarProvider.getMergedJar(), classpath, mapProvider.getIntermediaryJar(), fromM, "intermediary");
+			if (interATs != null) checkMissed(interATs);
 		}
+		if (namedATs != null) checkMissed(namedATs);
+		if (tempInterJar != null) Files.delete(tempInterJar);
 
-		mapJar(project.getLogger(), extension, mappingsProvider, mapProvider.getIntermediaryJar().toPath(), classpath, mapProvider.getMappedJar(), "intermediary", "named");
-		CommandFixNesting.run(mapProvider.getMappedJar());
+		for (Path jar : baseNamed != null ? Arrays.asList(namedJar, baseNamed) : Collections.singletonList(namedJar)) {
+			CommandFixNesting.run(jar.toFile());
 
-		if (extension.shouldAddVersionIfNeeded() && !ZipUtil.containsEntry(mapProvider.getMappedJar(), "version.json")) addVersionJSON(mapProvider.getMappedJar(), jarProvider.minecraftVersion);
+			if (extension.shouldAddVersionIfNeeded() && !ZipUtil.containsEntry(jar.toFile(), "version.json")) addVersionJSON(jar.toFile(), jarProvider.minecraftVersion);
+		}
+	}
+
+	private static void mapJar(Logger logger, LoomGradleExtension extension, MappingsProvider mappingsProvider, Path input, Path[] classpath,
+			Path output, Path untransformedOutput, ClassATs ats, String fromM, String toM) throws IOException {
+		remapJar(logger, input, mappingsProvider.mcRemappingFactory.create(fromM, toM), extension.shouldBulldozeMappings(), classpath, output, untransformedOutput, ats, extension.getDevJarCompression(), fromM, toM);
 	}
 
-	private static void mapJar(Logger logger, LoomGradleExtension extension, MappingsProvider mappingsProvider, Path input, Path[] classpath, File output, String fromM, String toM) throws IOException {
-		remapJar(logger, input, mappingsProvider.mcRemappingFactory.create(fromM, toM), extension.shouldBulldozeMappings(), classpath, output.toPath(), fromM, toM);
+	private static void checkMissed(ClassATs ats) {
+		List<String> missed = ats.getMissed();
+		if (!missed.isEmpty()) throw new IllegalStateException("Finished transforming but missed " + missed);
 	}
 
 	public static Path makeInterJar(Project project, LoomGradleExtension extension, MinecraftVersionAdaptable version, Optional<Path> intermediaryMappings) throws IOException {
@@ -166,24 +247,41 @@ public class MapJarsTiny {
 	public static void remapJar(Logger logger, Path originJar, Path intermediaryMappings, boolean bulldoze, Set<File> libraries, Path remappedJar, String originMappings) {
 		remapJar(logger, originJar,
 				TinyUtils.createTinyMappingProvider(intermediaryMappings, originMappings, "intermediary"),
-				bulldoze, libraries.stream().map(File::toPath).toArray(Path[]::new), remappedJar, originMappings, "intermediary");
+				bulldoze, libraries.stream().map(File::toPath).toArray(Path[]::new), remappedJar, null, null, DevJarCompression.DEFAULT, originMappings, "intermediary");
 	}
 
-	private static void remapJar(Logger logger, Path input, IMappingProvider mappings, boolean bulldozeMappings, Path[] classpath, Path output, String fromM, String toM) {
+	private static void remapJar(Logger logger, Path input, IMappingProvider mappings, boolean bulldozeMappings, Path[] classpath,
+			Path output, Path untransformedOutput, ClassATs ats, DevJarCompression compression, String fromM, String toM) {
 		logger.lifecycle(":Remapping minecraft (TinyRemapper, " + fromM + " -> " + toM + ')');
 
-		TinyRemapper remapper = TinyRemapper.newRemapper()
+		TinyRemapper.Builder builder;
+		try {//Every Minecraft remap has the same libraries, so they only need reading in once
+			builder = RemapperClasspaths.withClasspath(classpath);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error reading classpath to remap " + input, e);
+		}
+
+		TinyRemapper remapper = builder
 				.withMappings(mappings)
 				.ignoreConflicts(bulldozeMappings)
 				.renameInvalidLocals(true)
 				.rebuildSourceFilenames(true)
 				.build();
 
-		try (OutputConsumerPath outputConsumer = new OutputConsumerPath(output)) {
-			remapper.readClassPath(classpath);
+		try (OutputConsumerPath outputConsumer = compression.createOutput(output);
+				OutputConsumerPath untransformedConsumer = untransformedOutput != null ? compression.createOutput(untransformedOutput) : null) {
 			remapper.readInputs(input);
-			remapper.apply(outputConsumer);
+			if (ats != null) {
+				//Each class is only given once, so can be transformed on whichever thread the remapper gives it on
+				remapper.apply((name, data) -> {
+					if (untransformedConsumer != null) untransformedConsumer.accept(name, data);
+					outputConsumer.accept(name, ats.transform(name, data));
+				});
+			} else {
+				remapper.apply(outputConsumer);
+			}
 			outputConsumer.addNonClassFiles(input, NonClassCopyMode.FIX_META_INF, remapper);
+			if (untransformedConsumer != null) untransformedConsumer.addNonClassFiles(input, NonClassCopyMode.FIX_META_INF, remapper);
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to remap JAR " + input + " with mappings from " + mappings, e);
 		} finally {
@@ -192,124 +290,105 @@ public class MapJarsTiny {
 	}
 
 	public static void transform(Project project, Set<Pair<String, String>> ats, MinecraftMappedProvider jarProvider, MappingsProvider mappingProvider) throws IOException {
-		project.getLogger().info("Reading in mappings...");
+		LoomGradleExtension extension = project.getExtensions().getByType(LoomGradleExtension.class);
+		IndexedMappings mappings = mappingProvider.getIndexedMappings();
+		Pair<Map<String, Set<String>>, Map<String, Set<String>>> transforms = resolveATs(project.getLogger(), ats, mappings);
 
-		Mappings mappings;
-		try (InputStream in = new FileInputStream(mappingProvider.MAPPINGS_TINY)) {
-			mappings = net.fabricmc.mappings.MappingsProvider.readTinyMappings(in, false);
-		}
+		project.getLogger().lifecycle(":transforming minecraft");
 
-		project.getLogger().info("Read in " + mappings.getClassEntries().size() + " classes");
-		project.getLogger().info("Working out what we have to do");
+		project.getLogger().info("Transforming intermediary jar");
+		doTheDeed(jarProvider.MINECRAFT_INTERMEDIARY_JAR, mappings.getClasses("intermediary", "named").keySet(), transforms.getRight(), WILDCARD, extension.getDevJarCompression());
+		project.getLogger().info("Transforming named jar");
+		doTheDeed(jarProvider.MINECRAFT_MAPPED_JAR, mappings.getClasses("named", "intermediary").keySet(), transforms.getLeft(), WILDCARD, extension.getDevJarCompression());
+		project.getLogger().info("Transformation complete"); //Probably, successful is another matter
+	}
+
+	/** Works out which classes and methods need transforming in the named and intermediary jars (respectively) for the given access transformations */
+	private static Pair<Map<String, Set<String>>, Map<String, Set<String>>> resolveATs(Logger logger, Set<Pair<String, String>> ats, IndexedMappings mappings) {
+		logger.info("Reading in mappings...");
+
+		Map<String, String> classes = mappings.getClasses("named", "intermediary");
+
+		logger.info("Read in " + classes.size() + " classes");
+		logger.info("Working out what we have to do");
 
-		final String wildcard = "<*>"; //Special marker for the class itself rather than a method
 		Map<String, Set<String>> transforms = new HashMap<>();
 		Map<String, Set<String>> interTransforms = new HashMap<>();
 
 		Map<Boolean, Set<Pair<String, String>>> bits = ats.stream().collect(Collectors.partitioningBy(pair -> pair.getRight() != null, Collectors.toSet()));
 		Set<String> rawClasses = bits.get(Boolean.FALSE).stream().map(Pair::getLeft).collect(Collectors.toSet());
 
-		for (ClassEntry entry : mappings.getClassEntries()) {
-			String named = entry.get("named");
-			if (rawClasses.contains(named)) {
-				rawClasses.remove(named);
+		for (Iterator<String> it = rawClasses.iterator(); it.hasNext();) {
+			String named = it.next();
+			String inter = classes.get(named);
 
-				String inter = entry.get("intermediary");
-				if (inter == null) throw new IllegalStateException("Missing intermediary name for " + named);
-				transforms.computeIfAbsent(named, k -> new HashSet<>()).add(wildcard);
-				interTransforms.computeIfAbsent(inter, k -> new HashSet<>()).add(wildcard);
-			}
-		}
+			if (inter != null) {
+				it.remove();
 
-		Map<String, Set<String>> methods = bits.get(Boolean.TRUE).stream().collect(Collectors.groupingBy(Pair::getLeft, Collectors.mapping(Pair::getRight, Collectors.toSet())));
-		for (MethodEntry entry : mappings.getMethodEntries()) {
-			EntryTriple named = entry.get("named");
-			Set<String> targets = methods.get(named.getOwner());
-
-			if (targets != null && targets.contains(named.getName() + named.getDesc())) {
-				EntryTriple inter = entry.get("intermediary");
-				if (inter == null) throw new IllegalStateException("Missing intermediary name for " + named);
-				transforms.computeIfAbsent(named.getOwner(), k -> new HashSet<>()).add(named.getName() + named.getDesc());
-				interTransforms.computeIfAbsent(inter.getOwner(), k -> new HashSet<>()).add(inter.getName() + inter.getDesc());
-
-				targets.remove(named.getName() + named.getDesc());
-				if (targets.isEmpty()) methods.remove(named.getOwner());
+				transforms.computeIfAbsent(named, k -> new HashSet<>()).add(WILDCARD);
+				interTransforms.computeIfAbsent(inter, k -> new HashSet<>()).add(WILDCARD);
 			}
 		}
 
+		Map<String, Set<String>> methods = bits.get(Boolean.TRUE).stream().collect(Collectors.groupingBy(Pair::getLeft, Collectors.mapping(Pair::getRight, Collectors.toSet())));
 		if (!methods.isEmpty()) {
-			List<String> resolved = new ArrayList<>();
-			UnaryOperator<String> remapper = name -> {
-				for (ClassEntry classEntry : mappings.getClassEntries()) {
-					if (name.equals(classEntry.get("named"))) {
-						return classEntry.get("intermediary");
-					}
-				}
-
-				return name;
-			};
+			Map<EntryTriple, EntryTriple> methodMappings = mappings.getMethods("named", "intermediary");
+			UnaryOperator<String> remapper = mappings.classRemapper("named", "intermediary");
 
-			for (Entry<String, Set<String>> entry : methods.entrySet()) {
-				List<String> resolvedConstructors = new ArrayList<>();
+			for (Iterator<Entry<String, Set<String>>> it = methods.entrySet().iterator(); it.hasNext();) {
+				Entry<String, Set<String>> entry = it.next();
+				String owner = entry.getKey();
 				Set<String> unresolvedMethods = entry.getValue();
 
-				for (String method : unresolvedMethods) {
+				for (Iterator<String> itMethod = unresolvedMethods.iterator(); itMethod.hasNext();) {
+					String method = itMethod.next();
+
+					String interOwner, interMethod;
 					//Constructors aren't included as part of the mappings, but that doesn't mean that they don't need remapping
 					if (method.startsWith("<init>(")) {
-						resolvedConstructors.add(method);
-
-						transforms.computeIfAbsent(entry.getKey(), k -> new HashSet<>()).add(method);
-						interTransforms.computeIfAbsent(remapper.apply(entry.getKey()), k -> new HashSet<>()).add(MappingBlob.remapDesc(method, remapper));
-					}
-				}
+						interOwner = remapper.apply(owner);
+						interMethod = MappingBlob.remapDesc(method, remapper);
+					} else {
+						int split = method.indexOf('(');
+						if (split <= 0) continue;
 
-				if (!resolvedConstructors.isEmpty()) {
-					unresolvedMethods.removeAll(resolvedConstructors);
+						EntryTriple inter = methodMappings.get(new EntryTriple(owner, method.substring(0, split), method.substring(split)));
+						if (inter == null) continue;
 
-					if (unresolvedMethods.isEmpty()) {
-						resolved.add(entry.getKey());
+						interOwner = inter.getOwner();
+						interMethod = inter.getName() + inter.getDesc();
 					}
+
+					transforms.computeIfAbsent(owner, k -> new HashSet<>()).add(method);
+					interTransforms.computeIfAbsent(interOwner, k -> new HashSet<>()).add(interMethod);
+					itMethod.remove();
 				}
-			}
 
-			if (!resolved.isEmpty()) resolved.forEach(methods::remove);
+				if (unresolvedMethods.isEmpty()) it.remove();
+			}
 		}
 
 		if (!rawClasses.isEmpty() || !methods.isEmpty()) {
-			project.getLogger().error("Unable to find mappings for the following entries in access transformer:");
-			rawClasses.forEach(name -> project.getLogger().error('\t' + name));
+			logger.error("Unable to find mappings for the following entries in access transformer:");
+			rawClasses.forEach(name -> logger.error('\t' + name));
 			methods.forEach((key, value) -> {
-				project.getLogger().error('\t' + key + ':');
-				value.forEach(name -> project.getLogger().error("\t\t" + name));
+				logger.error('\t' + key + ':');
+				value.forEach(name -> logger.error("\t\t" + name));
 			});
 			throw new InvalidUserDataException("Invalid lines found within access transformer");
 		}
-		project.getLogger().info("Found " + transforms.size() + " classes that need tinkering with");
-		project.getLogger().lifecycle(":transforming minecraft");
+		logger.info("Found " + transforms.size() + " classes that need tinkering with");
 
-		project.getLogger().info("Transforming intermediary jar");
-		doTheDeed(jarProvider.MINECRAFT_INTERMEDIARY_JAR, mappings, "intermediary", interTransforms, wildcard);
-		project.getLogger().info("Transforming named jar");
-		doTheDeed(jarProvider.MINECRAFT_MAPPED_JAR, mappings, "named", transforms, wildcard);
-		project.getLogger().info("Transformation complete"); //Probably, successful is another matter
+		return Pair.of(transforms, interTransforms);
 	}
 
-	private static void doTheDeed(File jar, Mappings mappings, String type, Map<String, Set<String>> transforms, String wildcard) throws IOException {
-		Set<String> classPool = mappings.getClassEntries().parallelStream().map(entry -> entry.get(type)).collect(Collectors.toSet());
-		ZipEntryAT[] transformers = AccessTransformerHelper.makeZipATs(classPool, transforms, wildcard);
+	private static void doTheDeed(File jar, Set<String> classPool, Map<String, Set<String>> transforms, String wildcard, DevJarCompression compression) throws IOException {
+		ClassATs transformers = AccessTransformerHelper.makeClassATs(classPool, transforms, wildcard);
 
-		ZipUtil.transformEntries(jar, transformers);
+		//Only the transformed classes need rewriting, everything else can be copied across still compressed
+		ZipRewriter.transform(jar.toPath(), transformers.forEntries(), compression.getLevel());
 
-		if (!Arrays.stream(transformers).allMatch(ZipEntryAT::didTransform)) {
-			List<String> missed = new ArrayList<>();
-			for (ZipEntryAT transformer : transformers) {
-				if (!transformer.didTransform()) {
-					String name = transformer.getPath();
-					missed.add(name.substring(0, name.length() - ".class".length()));
-				}
-			}
-			throw new IllegalStateException("Finished transforming but missed " + missed);
-		}
+		checkMissed(transformers);
 	}
 
 	private static void addVersionJSON(File jar, String version) {
@@ -29,7 +29,6 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.zip.ZipEntry;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -38,47 +37,43 @@ import com.google.gson.JsonSyntaxException;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonToken;
 
+import org.gradle.api.logging.Logger;
+
 import org.zeroturnaround.zip.ZipUtil;
-import org.zeroturnaround.zip.transform.StringZipEntryTransformer;
-import org.zeroturnaround.zip.transform.ZipEntryTransformerEntry;
 
 public final class MixinRefmapHelper {
 	private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
 
 	private MixinRefmapHelper() { }
 
-	public static boolean addRefmapName(String filename, String mixinVersion, File output) {
-		Set<String> mixinFilenames = findMixins(output);
-
-		if (mixinFilenames.size() > 0) {
-			return ZipUtil.transformEntries(output, mixinFilenames.stream().map((f) -> new ZipEntryTransformerEntry(f, new StringZipEntryTransformer("UTF-8") {
-				@Override
-				protected String transform(ZipEntry zipEntry, String input) throws IOException {
-					try {
-						JsonObject json = GSON.fromJson(input, JsonObject.class);
+	public static boolean addRefmapName(Logger logger, String filename, String mixinVersion, File input, JarEdits edits) {
+		Set<String> mixinFilenames = findMixins(logger, input);
 
-						if (!json.has("refmap")) {
-							json.addProperty("refmap", filename);
-						}
+		for (String mixinFilename : mixinFilenames) {
+			edits.transform(mixinFilename, contents -> {
+				try {
+					JsonObject json = GSON.fromJson(contents, JsonObject.class);
 
-						if (!json.has("minVersion") && mixinVersion != null) {
-							json.addProperty("minVersion", mixinVersion);
-						}
+					if (!json.has("refmap")) {
+						json.addProperty("refmap", filename);
+					}
 
-						return GSON.toJson(json);
-					} catch (JsonSyntaxException e) {
-						System.err.println("Suspected Mixin config " + zipEntry + " is not a JSON object");
-						e.printStackTrace();
-						return input;
+					if (!json.has("minVersion") && mixinVersion != null) {
+						json.addProperty("minVersion", mixinVersion);
 					}
+
+					return GSON.toJson(json);
+				} catch (JsonSyntaxException e) {
+					logger.warn("Suspected Mixin config " + mixinFilename + " is not a JSON object", e);
+					return contents;
 				}
-			})).toArray(ZipEntryTransformerEntry[]::new));
-		} else {
-			return false;
+			});
 		}
+
+		return !mixinFilenames.isEmpty();
 	}
 
-	private static Set<String> findMixins(File output) {
+	private static Set<String> findMixins(Logger logger, File output) {
 		// first, identify all of the mixin files
 		Set<String> mixinFilename = new HashSet<>();
 		// TODO: this is a lovely hack
@@ -138,8 +133,7 @@ public final class MixinRefmapHelper {
 						}
 					}
                 } catch (IOException | IllegalStateException e) {
-                	System.err.println("Error reading " + entry);
-                    e.printStackTrace();
+                	logger.warn("Error reading " + entry, e);
                 }
             }
         });
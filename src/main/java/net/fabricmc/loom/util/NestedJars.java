@@ -32,18 +32,13 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.function.BiConsumer;
-import java.util.zip.ZipEntry;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import org.apache.commons.io.FileUtils;
-import org.zeroturnaround.zip.FileSource;
-import org.zeroturnaround.zip.ZipEntrySource;
 import org.zeroturnaround.zip.ZipUtil;
-import org.zeroturnaround.zip.transform.StringZipEntryTransformer;
-import org.zeroturnaround.zip.transform.ZipEntryTransformerEntry;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
@@ -59,7 +54,7 @@ import net.fabricmc.loom.task.RemapJarTask;
 public class NestedJars {
 	static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
 
-	public static boolean addNestedJars(Project project, Logger logger, File modJar) {
+	public static boolean addNestedJars(Project project, Logger logger, File modJar, JarEdits edits) {
 		logger.debug("Looking for nested jars for {}", modJar);
 		List<File> containedJars = getContainedJars(project, logger);
 
@@ -70,28 +65,28 @@ public class NestedJars {
 
 		logger.debug("Found {} nested jars: {}", containedJars.size(), containedJars);
 
-		ZipUtil.addOrReplaceEntries(modJar, containedJars.stream().map(file -> new FileSource("META-INF/jars/" + file.getName(), file)).toArray(ZipEntrySource[]::new));
-		return ZipUtil.transformEntry(modJar, new ZipEntryTransformerEntry("fabric.mod.json", new StringZipEntryTransformer() {
-			@Override
-			protected String transform(ZipEntry zipEntry, String input) throws IOException {
-				JsonObject json = GSON.fromJson(input, JsonObject.class);
-				JsonArray nestedJars = json.getAsJsonArray("jars");
+		for (File file : containedJars) {
+			edits.add("META-INF/jars/" + file.getName(), file.toPath());
+		}
+		edits.transform("fabric.mod.json", input -> {
+			JsonObject json = GSON.fromJson(input, JsonObject.class);
+			JsonArray nestedJars = json.getAsJsonArray("jars");
 
-				if (nestedJars == null || !json.has("jars")) {
-					nestedJars = new JsonArray();
-				}
+			if (nestedJars == null || !json.has("jars")) {
+				nestedJars = new JsonArray();
+			}
 
-				for (File file : containedJars) {
-					JsonObject jsonObject = new JsonObject();
-					jsonObject.addProperty("file", "META-INF/jars/" + file.getName());
-					nestedJars.add(jsonObject);
-				}
+			for (File file : containedJars) {
+				JsonObject jsonObject = new JsonObject();
+				jsonObject.addProperty("file", "META-INF/jars/" + file.getName());
+				nestedJars.add(jsonObject);
+			}
 
-				json.add("jars", nestedJars);
+			json.add("jars", nestedJars);
 
-				return GSON.toJson(json);
-			}
-		}));
+			return GSON.toJson(json);
+		});
+		return true;
 	}
 
 	private static List<File> getContainedJars(Project project, Logger logger) {
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A gzip stream which compresses in blocks across the common pool, in the same way as pigz.
+ *
+ * <p>Each block is written out as its own complete gzip member, which anything reading gzip
+ * (including {@link java.util.zip.GZIPInputStream}) treats as one continuous stream.
+ * Compressing the blocks separately costs a little in size, but lets them all be done at once.
+ *
+ * @author Chocohead
+ */
+public class ParallelGZIPOutputStream extends FilterOutputStream {
+	private static final int BLOCK_SIZE = 128 * 1024;
+	private static final byte[] HEADER = {
+		0x1f, (byte) 0x8b, //Magic
+		Deflater.DEFLATED, //Compression method
+		0, //Flags
+		0, 0, 0, 0, //Modification time
+		0, //Extra flags
+		(byte) 0xFF //Unknown OS
+	};
+
+	private final int level;
+	private final int maxPending;
+	private final Queue<Future<byte[]>> pending = new ArrayDeque<>();
+	private byte[] block = new byte[BLOCK_SIZE];
+	private int blockSize;
+	private boolean anyWritten, closed;
+
+	public ParallelGZIPOutputStream(OutputStream out) {
+		this(out, Deflater.DEFAULT_COMPRESSION);
+	}
+
+	public ParallelGZIPOutputStream(OutputStream out, int level) {
+		super(out);
+
+		this.level = level;
+		//Enough to keep every thread busy, without buffering the whole file if writing out falls behind
+		maxPending = ForkJoinPool.getCommonPoolParallelism() * 2 + 1;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		ensureOpen();
+
+		block[blockSize++] = (byte) b;
+		if (blockSize == BLOCK_SIZE) submitBlock();
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		ensureOpen();
+
+		while (len > 0) {
+			int count = Math.min(len, BLOCK_SIZE - blockSize);
+			System.arraycopy(b, off, block, blockSize, count);
+
+			blockSize += count;
+			off += count;
+			len -= count;
+
+			if (blockSize == BLOCK_SIZE) submitBlock();
+		}
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed) throw new IOException("Stream closed");
+	}
+
+	private void submitBlock() throws IOException {
+		byte[] data = blockSize == BLOCK_SIZE ? block : Arrays.copyOf(block, blockSize);
+		int length = blockSize;
+
+		pending.add(CompletableFuture.supplyAsync(() -> compress(data, length, level), ForkJoinPool.commonPool()));
+		block = new byte[BLOCK_SIZE];
+		blockSize = 0;
+		anyWritten = true;
+
+		while (pending.size() >= maxPending) {
+			writeNext();
+		}
+	}
+
+	private void writeNext() throws IOException {
+		try {
+			out.write(pending.remove().get());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for block to compress");
+		} catch (ExecutionException e) {
+			throw new IOException("Error compressing block", e.getCause());
+		}
+	}
+
+	private static byte[] compress(byte[] data, int length, int level) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + HEADER.length + 8);
+		out.write(HEADER, 0, HEADER.length);
+
+		Deflater deflater = new Deflater(level, true);
+		try {
+			deflater.setInput(data, 0, length);
+			deflater.finish();
+
+			byte[] buffer = new byte[8192];
+			while (!deflater.finished()) {
+				int written = deflater.deflate(buffer);
+				out.write(buffer, 0, written);
+			}
+		} finally {
+			deflater.end();
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(data, 0, length);
+		writeInt(out, (int) crc.getValue());
+		writeInt(out, length);
+
+		return out.toByteArray();
+	}
+
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		//Gzip is little endian
+		out.write(value);
+		out.write(value >>> 8);
+		out.write(value >>> 16);
+		out.write(value >>> 24);
+	}
+
+	/** Write out every block which has been given so far, compressing anything left over as a (short) block of its own */
+	public void finish() throws IOException {
+		ensureOpen();
+
+		if (blockSize > 0 || !anyWritten) submitBlock();
+		while (!pending.isEmpty()) {
+			writeNext();
+		}
+	}
+
+	/** Write out every block which has been given so far (including a short block for anything left over), then flush the underlying stream */
+	@Override
+	public void flush() throws IOException {
+		ensureOpen();
+
+		if (blockSize > 0) submitBlock();
+		while (!pending.isEmpty()) {
+			writeNext();
+		}
+
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (!closed) {
+			try {
+				finish();
+			} finally {
+				closed = true;
+				pending.forEach(future -> future.cancel(false));
+				out.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import net.fabricmc.tinyremapper.TinyRemapper;
+
+/**
+ * Remappers with a classpath already read in, which new remappers can be {@link TinyRemapper#cloner() cloned} from
+ * rather than each reading (and parsing) the same libraries again.
+ *
+ * <p>The classpaths are keyed by the content of each library, in order. Only a few are kept, and those which haven't been
+ * used for a few minutes are dropped, in which case the next remapper to want them will read them in again. Dropped remappers
+ * are {@link TinyRemapper#finish() finished} so their threads don't outlive them.
+ *
+ * @author Chocohead
+ */
+public final class RemapperClasspaths {
+	//Not softly held, as a collected remapper would never get finished
+	private static final Cache<HashCode, TinyRemapper> CLASSPATHS = CacheBuilder.newBuilder().maximumSize(4).expireAfterAccess(5, TimeUnit.MINUTES)
+			.removalListener((RemovalNotification<HashCode, TinyRemapper> notification) -> notification.getValue().finish()).build();
+
+	private RemapperClasspaths() {
+	}
+
+	@SuppressWarnings("deprecation") //Not for security, just identity
+	private static HashCode hash(Path[] classpath) throws IOException {
+		Hasher hasher = Hashing.sha1().newHasher();
+
+		for (Path library : classpath) {
+			hasher.putBytes(FileHashes.sha1(library).asBytes());
+		}
+
+		return hasher.hash();
+	}
+
+	/** Starts a remapper which has already read in the given classpath, any mappings or other settings still need to be given */
+	public static TinyRemapper.Builder withClasspath(Path... classpath) throws IOException {
+		HashCode hash = hash(classpath);
+
+		//Templates are only ever evicted (and finished) from inside here, so one can't be finished whilst it is being cloned
+		synchronized (CLASSPATHS) {
+			TinyRemapper template;
+			try {
+				template = CLASSPATHS.get(hash, () -> {
+					TinyRemapper remapper = TinyRemapper.newRemapper().keepInputData(true).build();
+					remapper.readClassPath(classpath);
+					return remapper;
+				});
+			} catch (ExecutionException | UncheckedExecutionException e) {
+				Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+				Throwables.throwIfUnchecked(e.getCause());
+				throw new RuntimeException("Error reading classpath", e.getCause());
+			}
+
+			//The template needs to keep its data to be cloned from, but there's no need for the clones to do the same
+			return template.cloner().keepInputData(false);
+		}
+	}
+}
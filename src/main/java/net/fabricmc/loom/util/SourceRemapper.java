@@ -29,10 +29,9 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
+import java.util.Map.Entry;
 
 import org.cadixdev.lorenz.MappingSet;
 import org.cadixdev.lorenz.io.MappingsReader;
@@ -46,18 +45,13 @@ import org.zeroturnaround.zip.ZipUtil;
 
 import net.fabricmc.loom.LoomGradleExtension;
 import net.fabricmc.loom.providers.MappingsProvider;
-import net.fabricmc.mappings.ClassEntry;
+import net.fabricmc.loom.providers.mappings.IndexedMappings;
 import net.fabricmc.mappings.EntryTriple;
-import net.fabricmc.mappings.FieldEntry;
-import net.fabricmc.mappings.Mappings;
-import net.fabricmc.mappings.MethodEntry;
 import net.fabricmc.stitch.util.Pair;
 import net.fabricmc.stitch.util.StitchUtil;
 
 
 public class SourceRemapper {
-	private static final Map<TinyReader, MappingSet> MAPPING_CACHE = new HashMap<>();
-
 	public static void remapSources(Project project, File source, File destination, boolean toNamed) throws IOException {
 		remapSources(project, Collections.singleton(Pair.of(source, destination)), toNamed);
 	}
@@ -72,17 +66,7 @@ public class SourceRemapper {
 		LoomGradleExtension extension = project.getExtensions().getByType(LoomGradleExtension.class);
 		MappingsProvider mappingsProvider = extension.getMappingsProvider();
 
-		MappingSet mappings;
-		try (TinyReader key = new TinyReader(mappingsProvider, toNamed ? "intermediary" : "named", toNamed ? "named" : "intermediary")) {
-			mappings = MAPPING_CACHE.computeIfAbsent(key, reader -> {
-				try {
-					project.getLogger().lifecycle(":loading {} source mappings", toNamed ? "intermediary -> named" : "named -> intermediary");
-					return reader.read();
-				} catch (IOException e) {
-					throw new UncheckedIOException("Error reading mappings from " + reader, e);
-				}
-			});
-		}
+		MappingSet mappings = getMappingSet(project, mappingsProvider.getIndexedMappings(), toNamed ? "intermediary" : "named", toNamed ? "named" : "intermediary");
 
 		project.getLogger().info(":remapping source jar");
 
@@ -189,6 +173,18 @@ public class SourceRemapper {
 		return m;
 	}
 
+	/** Gets the given mappings as a Lorenz {@link MappingSet}, which is shared with anything else using the same mappings between the same namespaces */
+	public static MappingSet getMappingSet(Project project, IndexedMappings mappings, String from, String to) {
+		return mappings.derive(Arrays.asList(MappingSet.class, from, to), indexed -> {
+			try (TinyReader reader = new TinyReader(indexed, from, to)) {
+				project.getLogger().lifecycle(":loading {} -> {} source mappings", from, to);
+				return reader.read();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Error reading mappings from " + from + " to " + to, e);
+			}
+		});
+	}
+
 	private static boolean isJavaFile(Path path) {
 		String name = path.getFileName().toString();
 		// ".java" is not a valid java file
@@ -196,40 +192,36 @@ public class SourceRemapper {
 	}
 
 	private static class TinyReader extends MappingsReader {
-		private final MappingsProvider provider;
+		private final IndexedMappings m;
 		private final String from, to;
 
-		public TinyReader(MappingsProvider provider, String from, String to) {
-			this.provider = provider;
+		public TinyReader(IndexedMappings mappings, String from, String to) {
+			this.m = mappings;
 			this.from = from;
 			this.to = to;
 		}
 
 		@Override
-		public MappingSet read(final MappingSet mappings) throws IOException {
-			Mappings m = provider.getMappings();
-
-			for (ClassEntry entry : m.getClassEntries()) {
-				mappings.getOrCreateClassMapping(entry.get(from))
-						.setDeobfuscatedName(entry.get(to));
+		public MappingSet read(final MappingSet mappings) {
+			for (Entry<String, String> entry : m.getClasses(from, to).entrySet()) {
+				mappings.getOrCreateClassMapping(entry.getKey())
+						.setDeobfuscatedName(entry.getValue());
 			}
 
-			for (FieldEntry entry : m.getFieldEntries()) {
-				EntryTriple fromEntry = entry.get(from);
-				EntryTriple toEntry = entry.get(to);
+			for (Entry<EntryTriple, EntryTriple> entry : m.getFields(from, to).entrySet()) {
+				EntryTriple fromEntry = entry.getKey();
 
 				mappings.getOrCreateClassMapping(fromEntry.getOwner())
 						.getOrCreateFieldMapping(fromEntry.getName(), fromEntry.getDesc())
-						.setDeobfuscatedName(toEntry.getName());
+						.setDeobfuscatedName(entry.getValue().getName());
 			}
 
-			for (MethodEntry entry : m.getMethodEntries()) {
-				EntryTriple fromEntry = entry.get(from);
-				EntryTriple toEntry = entry.get(to);
+			for (Entry<EntryTriple, EntryTriple> entry : m.getMethods(from, to).entrySet()) {
+				EntryTriple fromEntry = entry.getKey();
 
 				mappings.getOrCreateClassMapping(fromEntry.getOwner())
 						.getOrCreateMethodMapping(fromEntry.getName(), fromEntry.getDesc())
-						.setDeobfuscatedName(toEntry.getName());
+						.setDeobfuscatedName(entry.getValue().getName());
 			}
 
 			return mappings;
@@ -237,24 +229,5 @@ public class SourceRemapper {
 
 		@Override
 		public void close() { }
-
-		@Override
-		public String toString() {
-			return provider.MAPPINGS_TINY.getName() + '[' + from + " => " + to + ']';
-		}
-
-		@Override
-		public int hashCode() {
-			return Objects.hash(provider.MAPPINGS_TINY, from, to);
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj) return true;
-			if (!(obj instanceof TinyReader)) return false;
-
-			TinyReader that = (TinyReader) obj;
-			return Objects.equals(from, that.from) && Objects.equals(to, that.to) && Objects.equals(provider.MAPPINGS_TINY, that.provider.MAPPINGS_TINY);
-		}
 	}
 }
@@ -24,14 +24,16 @@
 
 package net.fabricmc.loom.util;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import net.fabricmc.loom.LoomGradleExtension;
-import net.fabricmc.mappings.ClassEntry;
+import net.fabricmc.loom.providers.mappings.IndexedMappings;
 import net.fabricmc.mappings.EntryTriple;
 import net.fabricmc.mappings.FieldEntry;
-import net.fabricmc.mappings.Mappings;
-import net.fabricmc.mappings.MethodEntry;
 import net.fabricmc.tinyremapper.IMappingProvider;
 import net.fabricmc.tinyremapper.MemberInstance;
 
@@ -40,24 +42,42 @@ public class TinyRemapperMappingsHelper {
 		String suggestLocalName(String type, boolean plural);
 	}
 
+	/** The maps {@link IMappingProvider#load(Map, Map, Map)} fills, made once for each pair of namespaces then copied into each remapper */
+	private static final class MappingTables {
+		final Map<String, String> classes, fields, methods;
+
+		MappingTables(IndexedMappings mappings, String from, String to) {
+			classes = mappings.getClasses(from, to);
+
+			Map<EntryTriple, EntryTriple> fieldMappings = mappings.getFields(from, to);
+			Map<String, String> fields = new HashMap<>(fieldMappings.size() * 4 / 3 + 1);
+			for (Entry<EntryTriple, EntryTriple> entry : fieldMappings.entrySet()) {
+				EntryTriple fromTriple = entry.getKey();
+				fields.put(fromTriple.getOwner() + '/' + MemberInstance.getFieldId(fromTriple.getName(), fromTriple.getDesc(), false), entry.getValue().getName());
+			}
+			this.fields = Collections.unmodifiableMap(fields);
+
+			Map<EntryTriple, EntryTriple> methodMappings = mappings.getMethods(from, to);
+			Map<String, String> methods = new HashMap<>(methodMappings.size() * 4 / 3 + 1);
+			for (Entry<EntryTriple, EntryTriple> entry : methodMappings.entrySet()) {
+				EntryTriple fromTriple = entry.getKey();
+				methods.put(fromTriple.getOwner() + '/' + MemberInstance.getMethodId(fromTriple.getName(), fromTriple.getDesc()), entry.getValue().getName());
+			}
+			this.methods = Collections.unmodifiableMap(methods);
+		}
+	}
+
 	private TinyRemapperMappingsHelper() { }
 
-	public static IMappingProvider create(LoomGradleExtension extension, Mappings mappings, String from, String to) {
+	public static IMappingProvider create(LoomGradleExtension extension, IndexedMappings mappings, String from, String to) {
 		return new IMappingProvider() {
 			@Override
 			public void load(Map<String, String> classMap, Map<String, String> fieldMap, Map<String, String> methodMap) {
-				for (ClassEntry entry : mappings.getClassEntries()) {
-					classMap.put(entry.get(from), entry.get(to));
-				}
+				MappingTables tables = mappings.derive(Arrays.asList(MappingTables.class, from, to), indexed -> new MappingTables(indexed, from, to));
 
-				for (FieldEntry entry : mappings.getFieldEntries()) {
-					add(entry, from, to, fieldMap);
-				}
-
-				for (MethodEntry entry : mappings.getMethodEntries()) {
-					EntryTriple fromTriple = entry.get(from);
-					methodMap.put(fromTriple.getOwner() + '/' + MemberInstance.getMethodId(fromTriple.getName(), fromTriple.getDesc()), entry.get(to).getName());
-				}
+				classMap.putAll(tables.classes);
+				fieldMap.putAll(tables.fields);
+				methodMap.putAll(tables.methods);
 			}
 
 			@Override
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2021 Chocohead
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+package net.fabricmc.loom.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Rewrites zips where only a few entries are changed, copying the (still compressed) bytes of every other entry
+ * straight across rather than inflating and deflating them all over again. This makes changing a single class in a large
+ * jar not much more than a copy of the file.
+ *
+ * <p>Zip64 files are not supported, but neither are they expected for anything Minecraft or mod related.
+ *
+ * @author Chocohead
+ */
+public final class ZipRewriter {
+	@FunctionalInterface
+	public interface EntryTransformer {
+		/** Transforms the (uncompressed) contents of the given entry, returning the new contents */
+		byte[] transform(String name, byte[] data) throws IOException;
+	}
+
+	private static final int LOCAL_HEADER = 0x04034b50;
+	private static final int DATA_DESCRIPTOR = 0x08074b50;
+	private static final int CENTRAL_HEADER = 0x02014b50;
+	private static final int END_HEADER = 0x06054b50;
+	private static final int LOCAL_HEADER_SIZE = 30;
+	private static final int CENTRAL_HEADER_SIZE = 46;
+	private static final int END_HEADER_SIZE = 22;
+	private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+	private static final short STORED = 0, DEFLATED = 8;
+
+	private ZipRewriter() {
+	}
+
+	/**
+	 * Transforms the given entries in the given zip, leaving the rest as they are.
+	 * Transformed entries which were compressed are deflated at the given level.
+	 *
+	 * @return The names of the entries which were transformed, any which weren't in the zip are left out
+	 */
+	public static Set<String> transform(Path zip, Map<String, ? extends EntryTransformer> transformers, int level) throws IOException {
+		Path temp = Files.createTempFile(zip.toAbsolutePath().getParent(), zip.getFileName().toString(), ".tmp");
+
+		try {
+			Set<String> out = transform(zip, temp, transformers, level);
+			Files.move(temp, zip, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return out;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Copies the given zip to the given output, transforming the given entries along the way.
+	 * Transformed entries which were compressed are deflated at the given level, any others are copied without being changed.
+	 *
+	 * @return The names of the entries which were transformed, any which weren't in the zip are left out
+	 */
+	public static Set<String> transform(Path from, Path to, Map<String, ? extends EntryTransformer> transformers, int level) throws IOException {
+		Set<String> transformed = new HashSet<>();
+
+		try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(to, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer end = findEnd(in, from);
+			int entries = end.getShort(10) & 0xFFFF;
+			long centralSize = end.getInt(12) & 0xFFFFFFFFL;
+			long centralStart = end.getInt(16) & 0xFFFFFFFFL;
+
+			if (entries == 0xFFFF || centralSize == 0xFFFFFFFFL || centralStart == 0xFFFFFFFFL) {
+				throw new ZipException("Zip64 is not supported: " + from);
+			}
+
+			ByteBuffer central = read(in, centralStart, (int) centralSize);
+			ByteArrayOutputStream newCentral = new ByteArrayOutputStream((int) centralSize);
+			Deflater deflater = new Deflater(level, true);
+			Inflater inflater = new Inflater(true);
+
+			try {
+				for (int entry = 0; entry < entries; entry++) {
+					if (central.remaining() < CENTRAL_HEADER_SIZE || central.getInt(central.position()) != CENTRAL_HEADER) {
+						throw new ZipException("Corrupt central directory in " + from);
+					}
+
+					ByteBuffer header = central.slice().order(ByteOrder.LITTLE_ENDIAN);
+					int headerSize = CENTRAL_HEADER_SIZE + (header.getShort(28) & 0xFFFF) + (header.getShort(30) & 0xFFFF) + (header.getShort(32) & 0xFFFF);
+					header.limit(headerSize);
+					central.position(central.position() + headerSize);
+
+					byte[] rawName = new byte[header.getShort(28) & 0xFFFF];
+					((ByteBuffer) header.duplicate().position(CENTRAL_HEADER_SIZE)).get(rawName);
+					String name = new String(rawName, StandardCharsets.UTF_8);
+
+					int flags = header.getShort(8) & 0xFFFF;
+					short method = header.getShort(10);
+					long compressedSize = header.getInt(20) & 0xFFFFFFFFL;
+					long size = header.getInt(24) & 0xFFFFFFFFL;
+					long localStart = header.getInt(42) & 0xFFFFFFFFL;
+
+					ByteBuffer local = read(in, localStart, LOCAL_HEADER_SIZE);
+					if (local.getInt(0) != LOCAL_HEADER) throw new ZipException("Corrupt local header for " + name + " in " + from);
+					int localSize = LOCAL_HEADER_SIZE + (local.getShort(26) & 0xFFFF) + (local.getShort(28) & 0xFFFF);
+					long dataStart = localStart + localSize;
+
+					long newLocalStart = out.position();
+					ByteBuffer newHeader = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN).put(header);
+					EntryTransformer transformer = transformers.get(name);
+
+					if (transformer == null) {
+						long descriptorSize = 0;
+						if ((flags & FLAG_DATA_DESCRIPTOR) != 0) {
+							ByteBuffer descriptor = read(in, dataStart + compressedSize, 4);
+							descriptorSize = descriptor.getInt(0) == DATA_DESCRIPTOR ? 16 : 12;
+						}
+
+						copy(in, localStart, localSize + compressedSize + descriptorSize, out);
+					} else {
+						byte[] data = transformer.transform(name, inflate(in, dataStart, compressedSize, size, method, inflater, name));
+						transformed.add(name);
+
+						CRC32 crc = new CRC32();
+						crc.update(data);
+						byte[] compressed = method == STORED ? data : deflate(data, deflater);
+
+						ByteBuffer newLocal = read(in, localStart, localSize);
+						newLocal.putShort(6, (short) (flags & ~FLAG_DATA_DESCRIPTOR)).putShort(8, method == STORED ? STORED : DEFLATED);
+						newLocal.putInt(14, (int) crc.getValue()).putInt(18, compressed.length).putInt(22, data.length);
+						write(out, newLocal);
+						write(out, ByteBuffer.wrap(compressed));
+
+						newHeader.putShort(8, (short) (flags & ~FLAG_DATA_DESCRIPTOR)).putShort(10, method == STORED ? STORED : DEFLATED);
+						newHeader.putInt(16, (int) crc.getValue()).putInt(20, compressed.length).putInt(24, data.length);
+					}
+
+					if (newLocalStart > 0xFFFFFFFFL) throw new ZipException("Zip64 is not supported: " + to);
+					newHeader.putInt(42, (int) newLocalStart);
+					newCentral.write(newHeader.array(), 0, headerSize);
+				}
+			} finally {
+				deflater.end();
+				inflater.end();
+			}
+
+			long newCentralStart = out.position();
+			write(out, ByteBuffer.wrap(newCentral.toByteArray()));
+
+			end.putInt(12, newCentral.size()).putInt(16, (int) newCentralStart);
+			end.position(0);
+			write(out, end);
+		}
+
+		return transformed;
+	}
+
+	private static ByteBuffer findEnd(FileChannel in, Path from) throws IOException {
+		long size = in.size();
+		if (size < END_HEADER_SIZE) throw new ZipException("Not a zip: " + from);
+
+		//The end header is followed by a comment of up to 64KiB, so it might be a little way back from the end of the file
+		int searchSize = (int) Math.min(size, END_HEADER_SIZE + 0xFFFF);
+		ByteBuffer tail = read(in, size - searchSize, searchSize);
+
+		for (int start = searchSize - END_HEADER_SIZE; start >= 0; start--) {
+			if (tail.getInt(start) == END_HEADER && start + END_HEADER_SIZE + (tail.getShort(start + 20) & 0xFFFF) == searchSize) {
+				ByteBuffer end = ByteBuffer.allocate(searchSize - start).order(ByteOrder.LITTLE_ENDIAN);
+				end.put((ByteBuffer) tail.duplicate().position(start));
+				return end;
+			}
+		}
+
+		throw new ZipException("Unable to find end of central directory in " + from);
+	}
+
+	private static ByteBuffer read(FileChannel in, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+
+		while (buffer.hasRemaining()) {
+			if (in.read(buffer, position + buffer.position()) < 0) throw new ZipException("Unexpected end of zip");
+		}
+
+		buffer.flip();
+		return buffer;
+	}
+
+	private static void copy(FileChannel in, long position, long length, FileChannel out) throws IOException {
+		for (long done = 0; done < length;) {
+			long copied = in.transferTo(position + done, length - done, out);
+			if (copied <= 0) throw new ZipException("Unexpected end of zip");
+			done += copied;
+		}
+	}
+
+	private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			out.write(buffer);
+		}
+	}
+
+	private static byte[] inflate(FileChannel in, long position, long compressedSize, long size, short method, Inflater inflater, String name) throws IOException {
+		if (compressedSize > Integer.MAX_VALUE || size > Integer.MAX_VALUE) throw new ZipException("Entry too large: " + name);
+		ByteBuffer compressed = read(in, position, (int) compressedSize);
+
+		switch (method) {
+		case STORED:
+			return compressed.array();
+
+		case DEFLATED: {
+			inflater.reset();
+			inflater.setInput(compressed.array());
+			byte[] data = new byte[(int) size];
+
+			try {
+				for (int done = 0; done < data.length;) {
+					int inflated = inflater.inflate(data, done, data.length - done);
+					if (inflated == 0 && (inflater.finished() || inflater.needsInput())) throw new ZipException("Truncated entry: " + name);
+					done += inflated;
+				}
+			} catch (DataFormatException e) {
+				throw new ZipException("Corrupt entry " + name + ": " + e.getMessage());
+			}
+
+			return data;
+		}
+
+		default:
+			throw new ZipException("Unsupported compression method " + method + " for " + name);
+		}
+	}
+
+	private static byte[] deflate(byte[] data, Deflater deflater) {
+		deflater.reset();
+		deflater.setInput(data);
+		deflater.finish();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+		byte[] buffer = new byte[8192];
+		while (!deflater.finished()) {
+			out.write(buffer, 0, deflater.deflate(buffer));
+		}
+
+		return out.toByteArray();
+	}
+}